@@ -0,0 +1,98 @@
+public class AdaptiveLatticePricer {
+    private static final int INITIAL_STEPS = 16;
+    private static final int MAX_STEPS = 1 << 16;
+
+    private final double optionPrice;
+    private final double errorEstimate;
+    private final int steps;
+    private final boolean converged;
+
+    /**
+     * Prices an option with the fewest lattice steps that meet an error tolerance.
+     * <p>
+     * The step count starts at {@value #INITIAL_STEPS} and doubles until two successive estimates differ by
+     * less than the tolerance, or {@value #MAX_STEPS} steps are reached. CRR-style lattices oscillate between
+     * odd and even n, so each estimate is the average of the prices for n and n + 1; Leisen-Reimer lattices
+     * are always odd and do not oscillate, so their single price is used. The tolerance is met when the
+     * change is below the absolute tolerance or below the relative tolerance times the price.
+     *
+     * @param engine            Engine used for every price.
+     * @param scheme            Rule deriving the lattice factors from the volatility.
+     * @param contract          The option being priced.
+     * @param initialPrice      Initial asset price.
+     * @param interestRate      Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility        Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity          Time to maturity in years.
+     * @param absoluteTolerance Target absolute error; zero to use only the relative tolerance.
+     * @param relativeTolerance Target error relative to the price; zero to use only the absolute tolerance.
+     * @param workspace         Scratch buffers owned by the calling thread.
+     */
+    public AdaptiveLatticePricer(PricingEngine engine, LatticeParameters.Scheme scheme, OptionContract contract,
+                                 double initialPrice, double interestRate, double volatility, double maturity,
+                                 double absoluteTolerance, double relativeTolerance, PricingWorkspace workspace) {
+        if (absoluteTolerance < 0 || relativeTolerance < 0 || (absoluteTolerance == 0 && relativeTolerance == 0)) {
+            throw new IllegalArgumentException("At least one positive tolerance is required");
+        }
+
+        double previous = Double.NaN;
+        double current = Double.NaN;
+        double error = Double.POSITIVE_INFINITY;
+        int n = INITIAL_STEPS;
+        int used = n;
+        boolean met = false;
+        while (n <= MAX_STEPS) {
+            LatticeParameters parameters = new LatticeParameters(scheme, initialPrice, contract.getStrikePrice(),
+                    interestRate, volatility, maturity, n);
+            current = engine.price(contract, parameters.toModel(initialPrice), workspace);
+            used = parameters.getSteps();
+            if (scheme != LatticeParameters.Scheme.LEISEN_REIMER) {
+                // Average the neighbouring odd and even lattices to cancel the oscillation.
+                LatticeModel next = new LatticeParameters(scheme, initialPrice, contract.getStrikePrice(),
+                        interestRate, volatility, maturity, n + 1).toModel(initialPrice);
+                current = (current + engine.price(contract, next, workspace)) / 2;
+                used = n + 1;
+            }
+
+            if (!Double.isNaN(previous)) {
+                error = Math.abs(current - previous);
+                if (error <= absoluteTolerance || error <= relativeTolerance * Math.abs(current)) {
+                    met = true;
+                    break;
+                }
+            }
+            previous = current;
+            n *= 2;
+        }
+
+        optionPrice = current;
+        errorEstimate = error;
+        steps = used;
+        converged = met;
+    }
+
+    // Getter methods
+    public double getOptionPrice() {
+        return optionPrice;
+    }
+
+    /**
+     * @return The change between the last two estimates, used as the error estimate.
+     */
+    public double getErrorEstimate() {
+        return errorEstimate;
+    }
+
+    /**
+     * @return The largest step count priced.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return True if the tolerance was met before reaching the maximum step count.
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
@@ -0,0 +1,214 @@
+public class AsianBinomialEngine implements PricingEngine {
+    /**
+     * Default number of representative averages per node.
+     */
+    public static final int DEFAULT_AVERAGES = 64;
+
+    // Half-width, in standard deviations of the conditional average, of the range of sums a node's grid covers.
+    private static final double RANGE_STANDARD_DEVIATIONS = 5;
+
+    private final int averages;
+
+    public AsianBinomialEngine() {
+        this(DEFAULT_AVERAGES);
+    }
+
+    /**
+     * @param averages Number m of representative averages kept at every node; at least 3. Larger grids are
+     *                 more accurate and cost proportionally more.
+     */
+    public AsianBinomialEngine(int averages) {
+        if (averages < 3) {
+            throw new IllegalArgumentException("At least three representative averages are required");
+        }
+        this.averages = averages;
+    }
+
+    /**
+     * Prices a fixed-strike arithmetic-average option with the Hull-White representative-average method.
+     * <p>
+     * The payoff is on the average of the prices at steps 1..n, as in
+     * {@link MonteCarloPricer.Payoff#ARITHMETIC_AVERAGE}. Node j of row t is reached with running sums of past
+     * prices between the sum of the path that falls first and then rises and the sum of the path that rises
+     * first. Each node is represented by m sums spaced geometrically, as in Hull and White's e^(kh) grid, over
+     * that range narrowed to where the path average is likely to lie. Stepping back, each representative sum is
+     * extended by the price of the up and down successor and the successors' values are interpolated
+     * in their own grids by a continuous blend of quadratics, held flat beyond them. American contracts may be exercised on the
+     * running average from step 1 on. Row t is stored as one flat array of (t + 1) * m values
+     * ({@code values[j * m + k]}) updated in place, so the price costs O(n^2 m) time and O(n m) memory.
+     * Barrier contracts are not supported.
+     */
+    @Override
+    public double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Asian lattices do not support barrier options");
+        }
+        int steps = model.getSteps();
+        if ((long) (steps + 2) * averages > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many steps and averages for a single lattice");
+        }
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        double up = q * discount;
+        double down = (1 - q) * discount;
+        boolean isAmerican = contract.isAmerican();
+        int m = averages;
+
+        // Rows of node grids, followed by one scratch grid for the node being updated.
+        double[] optionValues = workspace.values((steps + 2) * m);
+        int scratch = (steps + 1) * m;
+
+        // Terminal row: payoff on the average of each representative sum.
+        for (int j = 0; j <= steps; j++) {
+            double lowest = gridLowest(initialPrice, upFactor, downFactor, steps, j);
+            double ratio = gridRatio(lowest, gridHighest(initialPrice, upFactor, downFactor, steps, j), m);
+            double sum = lowest;
+            for (int k = 0; k < m; k++) {
+                optionValues[j * m + k] = contract.payoff(sum / steps);
+                sum *= ratio;
+            }
+        }
+
+        for (int step = steps - 1; step >= 0; step--) {
+            for (int j = 0; j <= step; j++) {
+                double lowest = gridLowest(initialPrice, upFactor, downFactor, step, j);
+                double ratio = gridRatio(lowest, gridHighest(initialPrice, upFactor, downFactor, step, j), m);
+                double upPrice = initialPrice * Math.pow(upFactor, j + 1) * Math.pow(downFactor, step - j);
+                double downPrice = upPrice * downFactor / upFactor;
+                double upLowest = gridLowest(initialPrice, upFactor, downFactor, step + 1, j + 1);
+                double upHighest = gridHighest(initialPrice, upFactor, downFactor, step + 1, j + 1);
+                double downLowest = gridLowest(initialPrice, upFactor, downFactor, step + 1, j);
+                double downHighest = gridHighest(initialPrice, upFactor, downFactor, step + 1, j);
+                double upScale = (m - 1) / Math.log(upHighest / upLowest);
+                double downScale = (m - 1) / Math.log(downHighest / downLowest);
+
+                double sum = lowest;
+                for (int k = 0; k < m; k++) {
+                    double value = up * interpolate(optionValues, (j + 1) * m, m, upLowest, upScale, sum + upPrice)
+                            + down * interpolate(optionValues, j * m, m, downLowest, downScale, sum + downPrice);
+                    if (isAmerican && step > 0) {
+                        value = Math.max(value, contract.payoff(sum / step));
+                    }
+                    optionValues[scratch + k] = value;
+                    sum *= ratio;
+                }
+                // The down successor's grid was still being read above, so only now overwrite it.
+                System.arraycopy(optionValues, scratch, optionValues, j * m, m);
+            }
+        }
+
+        workspace.setNodesEvaluated((long) steps * (steps + 1) / 2 * m);
+        return optionValues[0];
+    }
+
+    public int getAverages() {
+        return averages;
+    }
+
+    /**
+     * @return The ratio between neighbouring sums of a grid of m sums spaced geometrically from
+     * {@code lowest} to {@code highest}; 1 for the single-sum nodes at the root and on the edges of the tree.
+     */
+    private static double gridRatio(double lowest, double highest, int m) {
+        if (lowest <= 0 || highest <= lowest * (1 + 1e-12)) {
+            return 1;
+        }
+        return Math.exp(Math.log(highest / lowest) / (m - 1));
+    }
+
+    /**
+     * Interpolation in a node's grid of m values over sums spaced geometrically from {@code lowest};
+     * {@code scale} is (m - 1) / ln(highest / lowest), infinite for a single-sum node.
+     */
+    private static double interpolate(double[] values, int offset, int m, double lowest, double scale, double sum) {
+        if (Double.isInfinite(scale)) {
+            return values[offset];
+        }
+        double position = Math.log(sum / lowest) * scale;
+        if (position <= 0) {
+            return values[offset];
+        }
+        if (position >= m - 1) {
+            return values[offset + m - 1];
+        }
+        // Blend of the quadratics through the grid points either side of the sum, weighted by the distance to
+        // each: continuous, unlike the quadratic through the nearest three points, which jumps where the nearest
+        // point changes and makes the price wander with m. Linear interpolation of the convex value function
+        // biases the price upwards at every step instead, and the bias accumulates over the tree. Past the ends
+        // of the grid the missing point is extrapolated linearly.
+        int index = (int) position;
+        double x = position - index;
+        double current = values[offset + index];
+        double next = values[offset + index + 1];
+        double previous = index > 0 ? values[offset + index - 1] : 2 * current - next;
+        double afterNext = index + 2 < m ? values[offset + index + 2] : 2 * next - current;
+        double left = current + x * (next - previous) / 2 + x * x * (next - 2 * current + previous) / 2;
+        double y = x - 1;
+        double right = next + y * (afterNext - current) / 2 + y * y * (afterNext - 2 * next + current) / 2;
+        return (1 - x) * left + x * right;
+    }
+
+    /**
+     * @return The smallest sum of node j's grid: the smallest reachable sum, or the lower end of the likely range.
+     */
+    private static double gridLowest(double initialPrice, double upFactor, double downFactor, int step, int j) {
+        return Math.max(lowestSum(initialPrice, upFactor, downFactor, step, j),
+                likelySum(initialPrice, upFactor, downFactor, step, j, -RANGE_STANDARD_DEVIATIONS));
+    }
+
+    /**
+     * @return The largest sum of node j's grid: the largest reachable sum, or the upper end of the likely range.
+     */
+    private static double gridHighest(double initialPrice, double upFactor, double downFactor, int step, int j) {
+        double highest = Math.min(highestSum(initialPrice, upFactor, downFactor, step, j),
+                likelySum(initialPrice, upFactor, downFactor, step, j, RANGE_STANDARD_DEVIATIONS));
+        return Math.max(highest, gridLowest(initialPrice, upFactor, downFactor, step, j));
+    }
+
+    /**
+     * Given that a path ends at node j, its log prices form a random-walk bridge whose average over t steps
+     * has variance about v^2 t / 12 around the average of the straight line, v being the per-step log volatility
+     * ln(u / d) / 2. Sums more than a few such standard deviations (plus one step) from t times the straight
+     * line's geometric mean price are too unlikely to matter.
+     *
+     * @return The sum {@code deviations} bridge standard deviations away from the straight-line sum.
+     */
+    private static double likelySum(double initialPrice, double upFactor, double downFactor, int step, int j,
+                                    double deviations) {
+        double stepVolatility = Math.log(upFactor / downFactor) / 2;
+        double centre = step * initialPrice * Math.exp((j * Math.log(upFactor) + (step - j) * Math.log(downFactor)) / 2);
+        double width = Math.abs(deviations) * stepVolatility * Math.sqrt(step / 12.0) + stepVolatility;
+        return centre * Math.exp(Math.signum(deviations) * width);
+    }
+
+    /**
+     * @return The smallest sum of the prices at steps 1..t over paths reaching node j: all down moves first.
+     */
+    private static double lowestSum(double initialPrice, double upFactor, double downFactor, int step, int j) {
+        int downs = step - j;
+        return initialPrice * (geometricSum(downFactor, downs) + Math.pow(downFactor, downs) * geometricSum(upFactor, j));
+    }
+
+    /**
+     * @return The largest sum of the prices at steps 1..t over paths reaching node j: all up moves first.
+     */
+    private static double highestSum(double initialPrice, double upFactor, double downFactor, int step, int j) {
+        return initialPrice * (geometricSum(upFactor, j) + Math.pow(upFactor, j) * geometricSum(downFactor, step - j));
+    }
+
+    /**
+     * @return r + r^2 + ... + r^count.
+     */
+    private static double geometricSum(double ratio, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        if (Math.abs(ratio - 1) < 1e-12) {
+            return count;
+        }
+        return ratio * (Math.pow(ratio, count) - 1) / (ratio - 1);
+    }
+}
@@ -0,0 +1,296 @@
+public class BinomialEngine implements PricingEngine {
+    // Tolerance, in node index units, under which a node is treated as lying exactly on the barrier.
+    private static final double BARRIER_TOLERANCE = 1e-9;
+    // Values below this are flushed to zero: they are economically meaningless and, once they become
+    // subnormal, every further multiplication is an order of magnitude slower.
+    private static final double NEGLIGIBLE_VALUE = 1e-250;
+
+    private static final PricingEngine LOG_SPACE_ENGINE = new LogSpaceBinomialEngine();
+
+    private final boolean skipInactiveRegions;
+
+    /**
+     * Creates an engine that skips the exercise and zero regions of American puts.
+     */
+    public BinomialEngine() {
+        this(true);
+    }
+
+    /**
+     * @param skipInactiveRegions True to fill the exercise and zero regions of American puts analytically
+     *                            instead of running the stencil over them; false to visit every node.
+     */
+    public BinomialEngine(boolean skipInactiveRegions) {
+        this.skipInactiveRegions = skipInactiveRegions;
+    }
+
+    /**
+     * Backward induction on a recombining binomial tree, updating a single row of option values in place.
+     * Uses O(n) memory taken from the workspace and O(n^2) time.
+     * <p>
+     * Knock-out barriers are applied by trimming the range of live nodes in each row, so knocked-out parts of
+     * the tree are never visited; knock-ins are priced as the vanilla option minus the matching knock-out.
+     * Vanilla trees too deep for direct powers of u and d are priced by a {@link LogSpaceBinomialEngine}.
+     */
+    @Override
+    public double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        OptionContract.BarrierType barrierType = contract.getBarrierType();
+        if (barrierType == OptionContract.BarrierType.NONE) {
+            if (LogSpaceBinomialEngine.needsLogSpace(model)) {
+                return LOG_SPACE_ENGINE.price(contract, model, workspace);
+            }
+            if (skipInactiveRegions && contract.isAmerican() && !contract.isCall()
+                    && model.getInterestRate() >= 0 && model.getDownFactor() < 1) {
+                return priceAmericanPut(contract, model, workspace);
+            }
+            return priceVanilla(contract, model, workspace);
+        }
+        if (barrierType.isKnockIn()) {
+            // In-out parity: knock-in + knock-out = vanilla (European exercise only).
+            double vanilla = priceVanilla(contract, model, workspace);
+            long vanillaNodes = workspace.getNodesEvaluated();
+            double knockOut = priceKnockOut(contract, barrierType.knockOut(), model, workspace);
+            workspace.setNodesEvaluated(vanillaNodes + workspace.getNodesEvaluated());
+            return vanilla - knockOut;
+        }
+        return priceKnockOut(contract, barrierType, model, workspace);
+    }
+
+    private double priceVanilla(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        boolean isAmerican = contract.isAmerican();
+
+        double[] optionValues = workspace.values(steps + 1);
+
+        // Compute terminal payoffs.
+        for (int i = 0; i <= steps; i++) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            optionValues[i] = contract.payoff(stockPrice);
+        }
+
+        // Backward induction (update in place).
+        double upOverDown = upFactor / downFactor;
+        for (int step = steps - 1; step >= 0; step--) {
+            if (isAmerican) {
+                double lowestPrice = initialPrice * Math.pow(downFactor, step);
+                backwardRowAmerican(optionValues, 0, step, q, discount, contract, lowestPrice, upOverDown);
+            } else {
+                backwardRow(optionValues, 0, step, q, discount);
+            }
+        }
+
+        workspace.setNodesEvaluated((long) steps * (steps + 1) / 2);
+        return optionValues[0];
+    }
+
+    /**
+     * Backward induction for an American put restricted, row by row, to the band of nodes between the
+     * exercise boundary and the zero region.
+     * <p>
+     * With r >= 0, a node whose two successors are both exercised is itself exercised: its continuation value
+     * is K / (1 + r) - S, never more than K - S. The exercise region therefore shrinks by at most one node per
+     * row and its values are known in closed form. Above the strike, a node whose successors are both zero is
+     * zero. Only the nodes between the two regions go through the stencil; the single exercised successor the
+     * band reads is written from the payoff, and values flushed to zero widen the zero region as they appear.
+     */
+    private double priceAmericanPut(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        double strikePrice = contract.getStrikePrice();
+
+        double upOverDown = upFactor / downFactor;
+        double logUpOverDown = Math.log(upOverDown);
+        double logDown = Math.log(downFactor);
+        double logStrike = Math.log(strikePrice / initialPrice);
+
+        double[] optionValues = workspace.values(steps + 1);
+
+        // Terminal row: nodes 0..exercised-1 are in the money, the rest are zero.
+        int exercised = 0;
+        for (int i = 0; i <= steps; i++) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            optionValues[i] = contract.payoff(stockPrice);
+            if (optionValues[i] > 0) {
+                exercised = i + 1;
+            }
+        }
+        int zeroFrom = exercised;
+        long nodesEvaluated = 0;
+
+        // Invariant: in the row just computed, nodes below `exercised` hold K - S (only the ones at or above the
+        // last band are actually stored) and nodes from `zeroFrom` upwards hold zero.
+        for (int step = steps - 1; step >= 0; step--) {
+            int low = Math.min(Math.max(0, exercised - 1), step + 1);
+            int worthless = firstWorthlessNode(step, logStrike, logDown, logUpOverDown);
+            int high = Math.min(step, Math.max(zeroFrom, worthless) - 1);
+
+            if (low <= high) {
+                if (low < exercised) {
+                    optionValues[low] = strikePrice
+                            - initialPrice * Math.pow(downFactor, step + 1) * Math.pow(upOverDown, low);
+                }
+                double lowestPrice = initialPrice * Math.pow(downFactor, step) * Math.pow(upOverDown, low);
+                backwardRowAmerican(optionValues, low, high, q, discount, contract, lowestPrice, upOverDown);
+                nodesEvaluated += high - low + 1;
+
+                // Move the boundaries past band nodes that were exercised or came out as zero.
+                exercised = low;
+                double stockPrice = lowestPrice;
+                while (exercised <= high && optionValues[exercised] > 0
+                        && optionValues[exercised] == contract.payoff(stockPrice)) {
+                    exercised++;
+                    stockPrice *= upOverDown;
+                }
+                zeroFrom = high + 1;
+                while (zeroFrom > exercised && optionValues[zeroFrom - 1] == 0) {
+                    zeroFrom--;
+                }
+            } else {
+                exercised = low;
+                zeroFrom = low;
+            }
+        }
+
+        workspace.setNodesEvaluated(nodesEvaluated);
+        return exercised > 0 ? contract.payoff(initialPrice) : optionValues[0];
+    }
+
+    /**
+     * @return The first node of the row at or above the strike, where a put pays nothing.
+     */
+    static int firstWorthlessNode(int step, double logStrike, double logDown, double logUpOverDown) {
+        double index = Math.ceil((logStrike - step * logDown) / logUpOverDown - BARRIER_TOLERANCE);
+        return (int) Math.max(0, Math.min(step + 1, index));
+    }
+
+    /**
+     * Backward induction restricted, row by row, to the nodes that have not touched the barrier.
+     * <p>
+     * Invariant: every knocked-out node of the current row holds zero. Terminal dead nodes are zeroed once;
+     * afterwards only the few nodes that leave the live range between two rows need clearing, so the work
+     * per row is proportional to the number of live nodes.
+     */
+    private double priceKnockOut(OptionContract contract, OptionContract.BarrierType barrierType,
+                                 LatticeModel model, PricingWorkspace workspace) {
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        boolean isAmerican = contract.isAmerican();
+        boolean isUp = barrierType.isUp();
+
+        double logUpOverDown = Math.log(upFactor / downFactor);
+        double logDown = Math.log(downFactor);
+        double logBarrier = Math.log(contract.getBarrierLevel() / initialPrice);
+        double upOverDown = upFactor / downFactor;
+
+        double[] optionValues = workspace.values(steps + 1);
+        long nodesEvaluated = 0;
+
+        // Terminal row: live nodes get the payoff, knocked-out nodes zero.
+        int low = lowestLiveNode(steps, isUp, logBarrier, logDown, logUpOverDown);
+        int high = highestLiveNode(steps, isUp, logBarrier, logDown, logUpOverDown);
+        for (int i = 0; i <= steps; i++) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            optionValues[i] = i >= low && i <= high ? contract.payoff(stockPrice) : 0;
+        }
+
+        for (int step = steps - 1; step >= 0; step--) {
+            int previousLow = low;
+            int previousHigh = Math.min(high, step);
+            low = lowestLiveNode(step, isUp, logBarrier, logDown, logUpOverDown);
+            high = highestLiveNode(step, isUp, logBarrier, logDown, logUpOverDown);
+
+            if (low <= high) {
+                if (isAmerican) {
+                    double lowestPrice = initialPrice * Math.pow(downFactor, step) * Math.pow(upOverDown, low);
+                    backwardRowAmerican(optionValues, low, high, q, discount, contract, lowestPrice, upOverDown);
+                } else {
+                    backwardRow(optionValues, low, high, q, discount);
+                }
+                nodesEvaluated += high - low + 1;
+
+                // Clear nodes that were live in the previous row but are knocked out in this one.
+                clear(optionValues, previousLow, Math.min(low - 1, previousHigh));
+                clear(optionValues, Math.max(high + 1, previousLow), previousHigh);
+            } else {
+                clear(optionValues, previousLow, previousHigh);
+            }
+        }
+
+        workspace.setNodesEvaluated(nodesEvaluated);
+        return optionValues[0];
+    }
+
+    /**
+     * Applies the q-weighted stencil in place to nodes {@code from..to} of a row.
+     */
+    static void backwardRow(double[] optionValues, int from, int to, double q, double discount) {
+        double up = q * discount;
+        double down = (1 - q) * discount;
+        for (int i = from; i <= to; i++) {
+            double value = up * optionValues[i + 1] + down * optionValues[i];
+            optionValues[i] = value < NEGLIGIBLE_VALUE ? 0 : value;
+        }
+    }
+
+    /**
+     * Applies the stencil to nodes {@code from..to} of a row and takes the early-exercise maximum;
+     * {@code lowestPrice} is the stock price at node {@code from}.
+     *
+     * @return The stock price at node {@code to + 1}, carried on by callers that update a row in pieces.
+     */
+    static double backwardRowAmerican(double[] optionValues, int from, int to, double q, double discount,
+                                      OptionContract contract, double lowestPrice, double upOverDown) {
+        double up = q * discount;
+        double down = (1 - q) * discount;
+        double stockPrice = lowestPrice;
+        for (int i = from; i <= to; i++) {
+            double value = up * optionValues[i + 1] + down * optionValues[i];
+            value = Math.max(value, contract.payoff(stockPrice));
+            optionValues[i] = value < NEGLIGIBLE_VALUE ? 0 : value;
+            stockPrice *= upOverDown;
+        }
+        return stockPrice;
+    }
+
+    /**
+     * Node i of a row has log(S / S0) = i * ln(u / d) + step * ln(d); this is the index at which it equals the barrier.
+     */
+    private static double barrierIndex(int step, double logBarrier, double logDown, double logUpOverDown) {
+        return (logBarrier - step * logDown) / logUpOverDown;
+    }
+
+    private static int lowestLiveNode(int step, boolean isUp, double logBarrier, double logDown, double logUpOverDown) {
+        if (isUp) {
+            return 0;
+        }
+        double index = Math.floor(barrierIndex(step, logBarrier, logDown, logUpOverDown) + BARRIER_TOLERANCE) + 1;
+        return (int) Math.max(0, Math.min(step + 1, index));
+    }
+
+    private static int highestLiveNode(int step, boolean isUp, double logBarrier, double logDown, double logUpOverDown) {
+        if (!isUp) {
+            return step;
+        }
+        double index = Math.ceil(barrierIndex(step, logBarrier, logDown, logUpOverDown) - BARRIER_TOLERANCE) - 1;
+        return (int) Math.max(-1, Math.min(step, index));
+    }
+
+    private static void clear(double[] values, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            values[i] = 0;
+        }
+    }
+}
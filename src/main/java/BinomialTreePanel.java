@@ -1,8 +1,14 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.Arrays;
 
 public class BinomialTreePanel extends JPanel {
+    // Layout parameters
+    private static final int X_SPACING = 150;
+    private static final int Y_SPACING = 80;
+    private static final int NODE_RADIUS = 25;
+    private static final int X_START = 100;
+    private static final int Y_START = 100;
+
     private double[][] optionValues;
     private double[][] stockPrices;
     private boolean showStockPrices;
@@ -25,19 +31,26 @@ public class BinomialTreePanel extends JPanel {
         repaint();
     }
 
+    /**
+     * @return The bounds of the node {@code node} places from the top of row {@code step}, with room for its label,
+     * for scrolling the panel to it.
+     */
+    public Rectangle nodeBounds(int step, int node) {
+        double[][] data = showStockPrices ? stockPrices : optionValues;
+        int steps = data == null ? 0 : data.length;
+        int x = X_START + step * X_SPACING;
+        int y = Y_START + (int) (node * Y_SPACING + (steps - 1 - step) * Y_SPACING / 2.0);
+        return new Rectangle(x - X_SPACING / 2, y - Y_SPACING / 2, X_SPACING, Y_SPACING);
+    }
+
     private void adjustPreferredSize() {
         double[][] data = showStockPrices ? stockPrices : optionValues;
         if (data == null) return;
 
         int steps = data.length;
-        int xSpacing = 150;
-        int ySpacing = 80;
-        int xStart = 100;
-        int yStart = 100;
-
-        int width = xStart + steps * xSpacing + 100;
+        int width = X_START + steps * X_SPACING + 100;
         int nodesInLastStep = steps + 1; // Each step has step + 1 nodes
-        int height = yStart + nodesInLastStep * ySpacing + 100;
+        int height = Y_START + nodesInLastStep * Y_SPACING + 100;
 
         setPreferredSize(new Dimension(width, height));
         revalidate(); // Notify parent containers of the size change
@@ -52,72 +65,47 @@ public class BinomialTreePanel extends JPanel {
         Graphics2D g2 = (Graphics2D) g;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        // Layout parameters
-        int xSpacing = 150;
-        int ySpacing = 80;
-        int nodeRadius = 25;
-        int xStart = 100;
-        int yStart = 100;
-
+        // Only the steps and nodes inside the clip are drawn, so large trees stay cheap to scroll
         int steps = data.length;
-        int[][] nodeX = new int[steps][];
-        int[][] nodeY = new int[steps][];
-
-        // Calculate all node positions
-        for (int step = 0; step < steps; step++) {
-            int nodesInStep = step + 1;
-            nodeX[step] = new int[nodesInStep];
-            nodeY[step] = new int[nodesInStep];
-
-            // Center nodes vertically based on step
-            double verticalOffset = (steps - 1 - step) * ySpacing / 2.0;
-
-            for (int node = 0; node < nodesInStep; node++) {
-                int x = xStart + step * xSpacing;
-                int y = yStart + (int) (node * ySpacing + verticalOffset);
-                nodeX[step][node] = x;
-                nodeY[step][node] = y;
-            }
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
         }
+        int firstStep = Math.max(0, (clip.x - X_START - X_SPACING) / X_SPACING);
+        int lastStep = Math.min(steps - 1, (clip.x + clip.width - X_START + X_SPACING) / X_SPACING);
 
         // Draw connecting lines first (so nodes appear on top)
         g2.setColor(new Color(100, 100, 100));
-        for (int step = 0; step < steps - 1; step++) {
-            for (int node = 0; node < step + 1; node++) {
-                // Connect to down node
-                if (node < step + 2) {
-                    g2.drawLine(nodeX[step][node], nodeY[step][node],
-                            nodeX[step + 1][node], nodeY[step + 1][node]);
-                }
-                // Connect to up node
-                if (node  < step + 1) {
-                    g2.drawLine(nodeX[step][node], nodeY[step][node],
-                            nodeX[step + 1][node + 1], nodeY[step + 1][node + 1]);
-                }
+        for (int step = Math.max(0, firstStep - 1); step <= lastStep && step < steps - 1; step++) {
+            int firstNode = firstVisibleNode(step, steps, clip);
+            int lastNode = lastVisibleNode(step, steps, clip);
+            for (int node = firstNode; node <= lastNode; node++) {
+                int x = nodeX(step);
+                int y = nodeY(step, node, steps);
+                // Connect to the next row's nodes on either side
+                g2.drawLine(x, y, nodeX(step + 1), nodeY(step + 1, node, steps));
+                g2.drawLine(x, y, nodeX(step + 1), nodeY(step + 1, node + 1, steps));
             }
         }
 
         // Draw nodes and text
         Font valueFont = new Font("SansSerif", Font.BOLD, 12);
         g2.setFont(valueFont);
-        for (int step = 0; step < steps; step++) {
-            for (int node = 0; node < step + 1; node++) {
-                int x = nodeX[step][node];
-                int y = nodeY[step][node];
+        for (int step = firstStep; step <= lastStep; step++) {
+            int firstNode = firstVisibleNode(step, steps, clip);
+            int lastNode = lastVisibleNode(step, steps, clip);
+            for (int node = firstNode; node <= lastNode; node++) {
+                int x = nodeX(step);
+                int y = nodeY(step, node, steps);
 
                 // Draw node
                 g2.setColor(new Color(230, 240, 255));
-                g2.fillOval(x - nodeRadius, y - nodeRadius, 2 * nodeRadius, 2 * nodeRadius);
+                g2.fillOval(x - NODE_RADIUS, y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
                 g2.setColor(Color.BLUE);
-                g2.drawOval(x - nodeRadius, y - nodeRadius, 2 * nodeRadius, 2 * nodeRadius);
+                g2.drawOval(x - NODE_RADIUS, y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
 
                 // Draw value text
-                String value;
-                if (showStockPrices) {
-                    value = String.format("$%.2f", stockPrices[step][step - node]);
-                } else {
-                    value = String.format("$%.2f", optionValues[step][step - node]);
-                }
+                String value = String.format("$%.2f", data[step][step - node]);
 
                 FontMetrics fm = g2.getFontMetrics();
                 int textWidth = fm.stringWidth(value);
@@ -128,4 +116,24 @@ public class BinomialTreePanel extends JPanel {
         }
     }
 
+    private static int nodeX(int step) {
+        return X_START + step * X_SPACING;
+    }
+
+    // Center nodes vertically based on step
+    private static int nodeY(int step, int node, int steps) {
+        return Y_START + (int) (node * Y_SPACING + (steps - 1 - step) * Y_SPACING / 2.0);
+    }
+
+    private static int firstVisibleNode(int step, int steps, Rectangle clip) {
+        double offset = (steps - 1 - step) * Y_SPACING / 2.0;
+        int node = (int) Math.floor((clip.y - Y_START - offset - Y_SPACING) / Y_SPACING);
+        return Math.max(0, node);
+    }
+
+    private static int lastVisibleNode(int step, int steps, Rectangle clip) {
+        double offset = (steps - 1 - step) * Y_SPACING / 2.0;
+        int node = (int) Math.ceil((clip.y + clip.height - Y_START - offset + Y_SPACING) / Y_SPACING);
+        return Math.min(step, node);
+    }
 }
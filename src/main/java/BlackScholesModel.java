@@ -0,0 +1,243 @@
+import java.util.stream.IntStream;
+
+public class BlackScholesModel {
+    private static final double INV_SQRT_TWO_PI = 0.3989422804014327;
+    // Options priced by one task of the parallel batch; large enough to amortise the fork/join overhead.
+    private static final int PARALLEL_CHUNK = 1 << 14;
+
+    private final double optionPrice;
+    private final double delta;
+    private final double gamma;
+    private final double vega;
+    private final double theta;
+    private final double rho;
+
+    /**
+     * Prices a European option on a non-dividend-paying stock with the Black-Scholes formula
+     * and computes its Greeks in the same pass.
+     *
+     * @param initialPrice Initial asset price.
+     * @param strikePrice  Strike price of the option.
+     * @param interestRate Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility   Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity     Time to maturity in years.
+     * @param isCall       True for Call option, False for Put option.
+     */
+    public BlackScholesModel(double initialPrice, double strikePrice, double interestRate,
+                             double volatility, double maturity, boolean isCall) {
+        optionPrice = price(initialPrice, strikePrice, interestRate, volatility, maturity, isCall);
+
+        // Same formulas as priceRange, for one option.
+        double omega = isCall ? 1 : -1;
+        double sqrtTime = Math.sqrt(maturity);
+        double sigmaSqrtTime = volatility * sqrtTime;
+        double d1 = d1(initialPrice, strikePrice, interestRate, volatility, maturity, sigmaSqrtTime);
+        double discountedStrike = strikePrice * Math.exp(-interestRate * maturity);
+        double cdfD1 = normalCdf(omega * d1);
+        double cdfD2 = normalCdf(omega * (d1 - sigmaSqrtTime));
+        double density = INV_SQRT_TWO_PI * Math.exp(-0.5 * d1 * d1);
+        delta = omega * cdfD1;
+        gamma = density / (initialPrice * sigmaSqrtTime);
+        vega = initialPrice * density * sqrtTime;
+        theta = -initialPrice * density * volatility / (2 * sqrtTime) - omega * interestRate * discountedStrike * cdfD2;
+        rho = omega * maturity * discountedStrike * cdfD2;
+    }
+
+    /**
+     * Prices one European option without computing its Greeks or allocating anything, for callers that price
+     * options one at a time in a hot loop.
+     *
+     * @param initialPrice Initial asset price.
+     * @param strikePrice  Strike price of the option.
+     * @param interestRate Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility   Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity     Time to maturity in years.
+     * @param isCall       True for Call option, False for Put option.
+     * @return The option price.
+     */
+    public static double price(double initialPrice, double strikePrice, double interestRate, double volatility,
+                               double maturity, boolean isCall) {
+        validate(initialPrice, strikePrice, volatility, maturity);
+        double omega = isCall ? 1 : -1;
+        double sigmaSqrtTime = volatility * Math.sqrt(maturity);
+        double d1 = d1(initialPrice, strikePrice, interestRate, volatility, maturity, sigmaSqrtTime);
+        double discountedStrike = strikePrice * Math.exp(-interestRate * maturity);
+        return omega * (initialPrice * normalCdf(omega * d1)
+                - discountedStrike * normalCdf(omega * (d1 - sigmaSqrtTime)));
+    }
+
+    private static double d1(double spot, double strike, double rate, double sigma, double time,
+                             double sigmaSqrtTime) {
+        return (Math.log(spot / strike) + (rate + 0.5 * sigma * sigma) * time) / sigmaSqrtTime;
+    }
+
+    /**
+     * Prices a batch of European options. Element {@code i} of every input array describes one option and
+     * the price and Greeks are written to element {@code i} of the output arrays, which must be at least
+     * as long as the inputs. Nothing is allocated, so the output arrays can be reused between batches.
+     *
+     * @param initialPrice Initial asset prices.
+     * @param strikePrice  Strike prices.
+     * @param interestRate Continuously compounded risk-free rates per year.
+     * @param volatility   Annualised volatilities.
+     * @param maturity     Times to maturity in years.
+     * @param isCall       True for Call options, False for Put options.
+     * @param price        Output option prices.
+     * @param delta        Output deltas (dV/dS).
+     * @param gamma        Output gammas (d2V/dS2).
+     * @param vega         Output vegas (dV/dsigma).
+     * @param theta        Output thetas (dV/dt, per year).
+     * @param rho          Output rhos (dV/dr).
+     */
+    public static void priceBatch(double[] initialPrice, double[] strikePrice, double[] interestRate,
+                                  double[] volatility, double[] maturity, boolean[] isCall,
+                                  double[] price, double[] delta, double[] gamma,
+                                  double[] vega, double[] theta, double[] rho) {
+        int count = checkBatch(initialPrice, strikePrice, interestRate, volatility, maturity, isCall,
+                price, delta, gamma, vega, theta, rho);
+        priceRange(initialPrice, strikePrice, interestRate, volatility, maturity, isCall,
+                price, delta, gamma, vega, theta, rho, 0, count);
+    }
+
+    /**
+     * Same as {@link #priceBatch} but splits the batch into fixed-size chunks priced on all cores.
+     * Each element is computed independently, so the results are identical to the sequential batch.
+     */
+    public static void priceBatchParallel(double[] initialPrice, double[] strikePrice, double[] interestRate,
+                                          double[] volatility, double[] maturity, boolean[] isCall,
+                                          double[] price, double[] delta, double[] gamma,
+                                          double[] vega, double[] theta, double[] rho) {
+        int count = checkBatch(initialPrice, strikePrice, interestRate, volatility, maturity, isCall,
+                price, delta, gamma, vega, theta, rho);
+        int chunks = (count + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(c -> priceRange(initialPrice, strikePrice, interestRate,
+                volatility, maturity, isCall, price, delta, gamma, vega, theta, rho,
+                c * PARALLEL_CHUNK, Math.min(count, (c + 1) * PARALLEL_CHUNK)));
+    }
+
+    private static int checkBatch(double[] initialPrice, double[] strikePrice, double[] interestRate,
+                                  double[] volatility, double[] maturity, boolean[] isCall,
+                                  double[] price, double[] delta, double[] gamma,
+                                  double[] vega, double[] theta, double[] rho) {
+        int count = initialPrice.length;
+        if (strikePrice.length != count || interestRate.length != count || volatility.length != count
+                || maturity.length != count || isCall.length != count) {
+            throw new IllegalArgumentException("Input arrays must have the same length");
+        }
+        if (price.length < count || delta.length < count || gamma.length < count
+                || vega.length < count || theta.length < count || rho.length < count) {
+            throw new IllegalArgumentException("Output arrays are shorter than the inputs");
+        }
+        return count;
+    }
+
+    private static void priceRange(double[] initialPrice, double[] strikePrice, double[] interestRate,
+                                   double[] volatility, double[] maturity, boolean[] isCall,
+                                   double[] price, double[] delta, double[] gamma,
+                                   double[] vega, double[] theta, double[] rho, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double spot = initialPrice[i];
+            double strike = strikePrice[i];
+            double rate = interestRate[i];
+            double sigma = volatility[i];
+            double time = maturity[i];
+            validate(spot, strike, sigma, time);
+
+            // omega = +1 for calls and -1 for puts, so both share one branch-free formula.
+            double omega = isCall[i] ? 1 : -1;
+            double sqrtTime = Math.sqrt(time);
+            double sigmaSqrtTime = sigma * sqrtTime;
+            double d1 = d1(spot, strike, rate, sigma, time, sigmaSqrtTime);
+            double d2 = d1 - sigmaSqrtTime;
+            double discountedStrike = strike * Math.exp(-rate * time);
+            double cdfD1 = normalCdf(omega * d1);
+            double cdfD2 = normalCdf(omega * d2);
+            double density = INV_SQRT_TWO_PI * Math.exp(-0.5 * d1 * d1);
+
+            price[i] = omega * (spot * cdfD1 - discountedStrike * cdfD2);
+            delta[i] = omega * cdfD1;
+            gamma[i] = density / (spot * sigmaSqrtTime);
+            vega[i] = spot * density * sqrtTime;
+            theta[i] = -spot * density * sigma / (2 * sqrtTime) - omega * rate * discountedStrike * cdfD2;
+            rho[i] = omega * time * discountedStrike * cdfD2;
+        }
+    }
+
+    /**
+     * Cumulative distribution function of the standard normal distribution.
+     * <p>
+     * Uses Hart's (1968) rational approximation as presented by West (2005), "Better approximations to
+     * cumulative normal functions", which is accurate to double precision and needs a single exponential.
+     */
+    public static double normalCdf(double x) {
+        double absX = Math.abs(x);
+        double tail;
+        if (absX > 37) {
+            tail = 0;
+        } else {
+            double exponential = Math.exp(-absX * absX / 2);
+            if (absX < 7.07106781186547) {
+                double numerator = 3.52624965998911E-02 * absX + 0.700383064443688;
+                numerator = numerator * absX + 6.37396220353165;
+                numerator = numerator * absX + 33.912866078383;
+                numerator = numerator * absX + 112.079291497871;
+                numerator = numerator * absX + 221.213596169931;
+                numerator = numerator * absX + 220.206867912376;
+                double denominator = 8.83883476483184E-02 * absX + 1.75566716318264;
+                denominator = denominator * absX + 16.064177579207;
+                denominator = denominator * absX + 86.7807322029461;
+                denominator = denominator * absX + 296.564248779674;
+                denominator = denominator * absX + 637.333633378831;
+                denominator = denominator * absX + 793.826512519948;
+                denominator = denominator * absX + 440.413735824752;
+                tail = exponential * numerator / denominator;
+            } else {
+                // Continued fraction for the far tail.
+                double fraction = absX + 0.65;
+                fraction = absX + 4 / fraction;
+                fraction = absX + 3 / fraction;
+                fraction = absX + 2 / fraction;
+                fraction = absX + 1 / fraction;
+                tail = exponential / fraction / 2.506628274631;
+            }
+        }
+        return x > 0 ? 1 - tail : tail;
+    }
+
+    private static void validate(double initialPrice, double strikePrice, double volatility, double maturity) {
+        if (initialPrice <= 0 || strikePrice <= 0) {
+            throw new IllegalArgumentException("Initial price and strike price must be positive");
+        }
+        if (volatility <= 0) {
+            throw new IllegalArgumentException("Volatility must be greater than zero");
+        }
+        if (maturity <= 0) {
+            throw new IllegalArgumentException("Maturity must be greater than zero");
+        }
+    }
+
+    // Getter methods
+    public double getOptionPrice() {
+        return optionPrice;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public double getGamma() {
+        return gamma;
+    }
+
+    public double getVega() {
+        return vega;
+    }
+
+    public double getTheta() {
+        return theta;
+    }
+
+    public double getRho() {
+        return rho;
+    }
+}
@@ -0,0 +1,193 @@
+public class CrankNicolsonPricer {
+    // Number of standard deviations of log price covered above the larger of spot and strike.
+    private static final double GRID_WIDTH_STD_DEVS = 6;
+    // Grid concentration around the strike; smaller values cluster more nodes near the kink of the payoff.
+    private static final double CONCENTRATION = 0.1;
+    // Penalty weight enforcing V >= payoff for early exercise (Forsyth and Vetzal, 2002).
+    private static final double PENALTY = 1e8;
+    private static final int MAX_PENALTY_ITERATIONS = 50;
+    // Fully implicit half steps replacing the first Crank-Nicolson steps to damp the payoff kink (Rannacher start-up).
+    private static final int RANNACHER_HALF_STEPS = 4;
+
+    private final double optionPrice;
+
+    /**
+     * Prices an option by solving the Black-Scholes PDE with the Crank-Nicolson scheme.
+     * <p>
+     * The spot axis is a non-uniform sinh grid that concentrates nodes around the strike, so far fewer nodes
+     * are needed than on a lattice with fixed u/d spacing. Each time step is one allocation-free tridiagonal
+     * (Thomas) solve; for American exercise the early-exercise constraint is imposed with a penalty term and
+     * the solve is repeated until the set of exercised nodes stops changing.
+     *
+     * @param initialPrice Initial asset price.
+     * @param strikePrice  Strike price of the option.
+     * @param interestRate Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility   Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity     Time to maturity in years.
+     * @param isCall       True for Call option, False for Put option.
+     * @param isAmerican   True if the option may be exercised at any time, False for European exercise.
+     * @param spaceSteps   Number of intervals of the spot grid.
+     * @param timeSteps    Number of time steps.
+     */
+    public CrankNicolsonPricer(double initialPrice, double strikePrice, double interestRate, double volatility,
+                               double maturity, boolean isCall, boolean isAmerican, int spaceSteps, int timeSteps) {
+        // Validate inputs.
+        if (initialPrice <= 0 || strikePrice <= 0) {
+            throw new IllegalArgumentException("Initial price and strike price must be positive");
+        }
+        if (volatility <= 0 || maturity <= 0) {
+            throw new IllegalArgumentException("Volatility and maturity must be greater than zero");
+        }
+        if (spaceSteps < 3 || timeSteps <= 0) {
+            throw new IllegalArgumentException("Grid needs at least 3 space steps and one time step");
+        }
+
+        // Build the sinh grid: S_j = K + alpha * sinh(c_j) with c uniform between the images of 0 and S_max.
+        int nodes = spaceSteps + 1;
+        double[] grid = new double[nodes];
+        double maxPrice = Math.max(initialPrice, strikePrice)
+                * Math.exp(GRID_WIDTH_STD_DEVS * volatility * Math.sqrt(maturity));
+        double alpha = CONCENTRATION * strikePrice;
+        double lowerImage = asinh(-strikePrice / alpha);
+        double upperImage = asinh((maxPrice - strikePrice) / alpha);
+        for (int j = 0; j < nodes; j++) {
+            double image = lowerImage + (upperImage - lowerImage) * j / spaceSteps;
+            grid[j] = strikePrice + alpha * Math.sinh(image);
+        }
+        grid[0] = 0;
+
+        // Spatial operator L V_j = lower_j V_{j-1} + diagonal_j V_j + upper_j V_{j+1} (second order on a non-uniform grid).
+        double[] operatorLower = new double[nodes];
+        double[] operatorDiagonal = new double[nodes];
+        double[] operatorUpper = new double[nodes];
+        double variance = volatility * volatility;
+        for (int j = 1; j < spaceSteps; j++) {
+            double price = grid[j];
+            double below = grid[j] - grid[j - 1];
+            double above = grid[j + 1] - grid[j];
+            double diffusion = 0.5 * variance * price * price;
+            double convection = interestRate * price;
+            operatorLower[j] = (2 * diffusion - convection * above) / (below * (below + above));
+            operatorUpper[j] = (2 * diffusion + convection * below) / (above * (below + above));
+            operatorDiagonal[j] = (-2 * diffusion + convection * (above - below)) / (below * above) - interestRate;
+        }
+
+        double[] payoff = new double[nodes];
+        double[] values = new double[nodes];
+        for (int j = 0; j < nodes; j++) {
+            payoff[j] = isCall ? Math.max(grid[j] - strikePrice, 0) : Math.max(strikePrice - grid[j], 0);
+            values[j] = payoff[j];
+        }
+
+        // Work buffers reused by every time step.
+        double[] lower = new double[nodes];
+        double[] diagonal = new double[nodes];
+        double[] upper = new double[nodes];
+        double[] rightHandSide = new double[nodes];
+        double[] penalizedDiagonal = new double[nodes];
+        double[] penalizedRightHandSide = new double[nodes];
+        double[] scratch = new double[nodes];
+        double[] previous = new double[nodes];
+
+        double stepLength = maturity / timeSteps;
+        int rannacherHalfSteps = Math.min(RANNACHER_HALF_STEPS, 2 * timeSteps);
+        int remainingSteps = timeSteps - rannacherHalfSteps / 2;
+        double timeToMaturity = 0;
+        for (int k = 0; k < rannacherHalfSteps + remainingSteps; k++) {
+            boolean implicit = k < rannacherHalfSteps;
+            double dt = implicit ? stepLength / 2 : stepLength;
+            double theta = implicit ? 1 : 0.5;
+            timeToMaturity += dt;
+
+            // Dirichlet boundaries at S = 0 and S = S_max for the new time level.
+            double discountedStrike = strikePrice * Math.exp(-interestRate * timeToMaturity);
+            double lowBoundary = isCall ? 0 : (isAmerican ? strikePrice : discountedStrike);
+            double highBoundary = isCall ? maxPrice - discountedStrike : 0;
+
+            for (int j = 1; j < spaceSteps; j++) {
+                double explicitPart = operatorLower[j] * values[j - 1] + operatorDiagonal[j] * values[j]
+                        + operatorUpper[j] * values[j + 1];
+                lower[j] = -theta * dt * operatorLower[j];
+                diagonal[j] = 1 - theta * dt * operatorDiagonal[j];
+                upper[j] = -theta * dt * operatorUpper[j];
+                rightHandSide[j] = values[j] + (1 - theta) * dt * explicitPart;
+            }
+            rightHandSide[1] -= lower[1] * lowBoundary;
+            rightHandSide[spaceSteps - 1] -= upper[spaceSteps - 1] * highBoundary;
+            values[0] = lowBoundary;
+            values[spaceSteps] = highBoundary;
+
+            if (!isAmerican) {
+                solveTridiagonal(lower, diagonal, upper, rightHandSide, scratch, values, 1, spaceSteps - 1);
+                continue;
+            }
+
+            // Penalty iteration: nodes below the payoff are pulled onto it until the active set is stable.
+            System.arraycopy(values, 0, previous, 0, nodes);
+            for (int iteration = 0; iteration < MAX_PENALTY_ITERATIONS; iteration++) {
+                for (int j = 1; j < spaceSteps; j++) {
+                    boolean exercised = previous[j] < payoff[j];
+                    penalizedDiagonal[j] = diagonal[j] + (exercised ? PENALTY : 0);
+                    penalizedRightHandSide[j] = rightHandSide[j] + (exercised ? PENALTY * payoff[j] : 0);
+                }
+                solveTridiagonal(lower, penalizedDiagonal, upper, penalizedRightHandSide, scratch, values,
+                        1, spaceSteps - 1);
+
+                boolean converged = iteration > 0;
+                for (int j = 1; j < spaceSteps && converged; j++) {
+                    converged = (values[j] < payoff[j]) == (previous[j] < payoff[j]);
+                }
+                System.arraycopy(values, 1, previous, 1, spaceSteps - 1);
+                if (converged) {
+                    break;
+                }
+            }
+        }
+
+        optionPrice = interpolate(grid, values, initialPrice);
+    }
+
+    /**
+     * Solves a tridiagonal system in place with the Thomas algorithm over rows {@code from..to} (inclusive).
+     * Only the caller's buffers are touched, so repeated solves allocate nothing.
+     */
+    static void solveTridiagonal(double[] lower, double[] diagonal, double[] upper, double[] rightHandSide,
+                                 double[] scratch, double[] solution, int from, int to) {
+        // Forward sweep: scratch holds the modified upper diagonal, solution the modified right-hand side.
+        scratch[from] = upper[from] / diagonal[from];
+        solution[from] = rightHandSide[from] / diagonal[from];
+        for (int j = from + 1; j <= to; j++) {
+            double pivot = diagonal[j] - lower[j] * scratch[j - 1];
+            scratch[j] = upper[j] / pivot;
+            solution[j] = (rightHandSide[j] - lower[j] * solution[j - 1]) / pivot;
+        }
+        // Back substitution.
+        for (int j = to - 1; j >= from; j--) {
+            solution[j] -= scratch[j] * solution[j + 1];
+        }
+    }
+
+    /**
+     * Quadratic Lagrange interpolation through the three grid nodes closest to {@code price}.
+     */
+    private static double interpolate(double[] grid, double[] values, double price) {
+        int j = 1;
+        while (j < grid.length - 2 && grid[j] < price) {
+            j++;
+        }
+        // Nodes j - 1, j, j + 1 bracket the price.
+        double x0 = grid[j - 1], x1 = grid[j], x2 = grid[j + 1];
+        double l0 = (price - x1) * (price - x2) / ((x0 - x1) * (x0 - x2));
+        double l1 = (price - x0) * (price - x2) / ((x1 - x0) * (x1 - x2));
+        double l2 = (price - x0) * (price - x1) / ((x2 - x0) * (x2 - x1));
+        return l0 * values[j - 1] + l1 * values[j] + l2 * values[j + 1];
+    }
+
+    private static double asinh(double x) {
+        return Math.log(x + Math.sqrt(x * x + 1));
+    }
+
+    public double getOptionPrice() {
+        return optionPrice;
+    }
+}
@@ -2,14 +2,23 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
 
 public class DiagramWindow extends JFrame {
+    // Trees with more rows than this open in the overview; their detailed diagram is far larger than the screen.
+    private static final int OVERVIEW_ROWS = 200;
 
     private final BinomialTreePanel treePanel;
+    private final TreeHeatmapPanel heatmapPanel;
+    private final JScrollPane scrollPane;
     private final JButton toggleDisplayButton;
+    private final JButton toggleOverviewButton;
+    private final JFileChooser snapshotChooser = new JFileChooser();
 
     // Flags to track the current display state
     private boolean isShowingStockPrices = false;
+    private boolean isShowingOverview = false;
 
     // References to the latest data
     private double[][] currentOptionValues;
@@ -21,8 +30,19 @@ public class DiagramWindow extends JFrame {
         // Initialize BinomialTreePanel
         treePanel = new BinomialTreePanel();
 
+        // The overview replaces the diagram in the scroll pane and follows its display state
+        heatmapPanel = new TreeHeatmapPanel();
+        heatmapPanel.setNodeSelectionListener(new TreeHeatmapPanel.NodeSelectionListener() {
+            @Override
+            public void nodeSelected(int step, int node) {
+                showOverview(false);
+                scrollPane.validate();
+                treePanel.scrollRectToVisible(treePanel.nodeBounds(step, node));
+            }
+        });
+
         // Embed BinomialTreePanel inside a JScrollPane
-        JScrollPane scrollPane = new JScrollPane(treePanel);
+        scrollPane = new JScrollPane(treePanel);
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
 
@@ -32,9 +52,46 @@ public class DiagramWindow extends JFrame {
         // Add JScrollPane to the content pane
         getContentPane().add(scrollPane, BorderLayout.CENTER);
 
-        // Initialize the toggle button
+        // Initialize the toggle button and the snapshot buttons
         toggleDisplayButton = new JButton("Show Stock Prices");
-        add(toggleDisplayButton, BorderLayout.SOUTH);
+        JButton saveSnapshotButton = new JButton("Save Snapshot...");
+        JButton openSnapshotButton = new JButton("Open Snapshot...");
+        toggleOverviewButton = new JButton("Show Overview");
+        final JComboBox<TreeHeatmap.Statistic> statisticBox = new JComboBox<>(TreeHeatmap.Statistic.values());
+        statisticBox.setSelectedItem(TreeHeatmap.Statistic.MEAN);
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        buttonPanel.add(toggleDisplayButton);
+        buttonPanel.add(toggleOverviewButton);
+        buttonPanel.add(statisticBox);
+        buttonPanel.add(saveSnapshotButton);
+        buttonPanel.add(openSnapshotButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        saveSnapshotButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                saveSnapshot();
+            }
+        });
+        openSnapshotButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openSnapshot();
+            }
+        });
+
+        toggleOverviewButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showOverview(!isShowingOverview);
+            }
+        });
+        statisticBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                heatmapPanel.setStatistic((TreeHeatmap.Statistic) statisticBox.getSelectedItem());
+            }
+        });
 
         // Add ActionListener to the button
         toggleDisplayButton.addActionListener(new ActionListener() {
@@ -48,11 +105,13 @@ public class DiagramWindow extends JFrame {
                     toggleDisplayButton.setText("Show Option Values");
                     if (currentStockPrices != null) {
                         treePanel.setStockPrices(currentStockPrices);
+                        heatmapPanel.replaceData(currentStockPrices);
                     }
                 } else {
                     toggleDisplayButton.setText("Show Stock Prices");
                     if (currentOptionValues != null) {
                         treePanel.setOptionValues(currentOptionValues);
+                        heatmapPanel.replaceData(currentOptionValues);
                     }
                 }
 
@@ -80,11 +139,88 @@ public class DiagramWindow extends JFrame {
         // Display the appropriate data based on the current state
         if (isShowingStockPrices) {
             treePanel.setStockPrices(stockPrices);
+            heatmapPanel.setData(stockPrices);
         } else {
             treePanel.setOptionValues(optionValues);
+            heatmapPanel.setData(optionValues);
         }
+        showOverview(optionValues != null && optionValues.length > OVERVIEW_ROWS);
 
         // Refresh the panel to ensure the latest data is shown
         treePanel.repaint();
     }
+
+    /**
+     * Swaps the scroll pane between the detailed diagram and the heatmap overview.
+     */
+    private void showOverview(boolean overview) {
+        if (overview == isShowingOverview) return;
+        isShowingOverview = overview;
+        // The overview fills the viewport rather than scrolling
+        scrollPane.setViewportView(overview ? heatmapPanel : treePanel);
+        toggleOverviewButton.setText(overview ? "Show Detail" : "Show Overview");
+    }
+
+    /**
+     * Saves the displayed tree, option values and stock prices, as a {@link TreeSnapshot} in the background.
+     */
+    private void saveSnapshot() {
+        final double[][] optionValues = currentOptionValues;
+        final double[][] stockPrices = currentStockPrices;
+        if (optionValues == null || stockPrices == null
+                || snapshotChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final File file = snapshotChooser.getSelectedFile();
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                TreeSnapshot.write(file.toPath(), optionValues, stockPrices);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (Exception ex) {
+                    showSnapshotError("Error saving snapshot: ", ex);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Loads a {@link TreeSnapshot} in the background and displays it.
+     */
+    private void openSnapshot() {
+        if (snapshotChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final File file = snapshotChooser.getSelectedFile();
+        new SwingWorker<double[][][], Void>() {
+            @Override
+            protected double[][][] doInBackground() throws IOException {
+                try (TreeSnapshot snapshot = new TreeSnapshot(file.toPath())) {
+                    return snapshot.readTree();
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    double[][][] tree = get();
+                    updateTree(tree[0], tree[1]);
+                } catch (Exception ex) {
+                    showSnapshotError("Error opening snapshot: ", ex);
+                }
+            }
+        }.execute();
+    }
+
+    private void showSnapshotError(String message, Exception ex) {
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        JOptionPane.showMessageDialog(this, message + cause.getMessage(), "Snapshot Error",
+                JOptionPane.ERROR_MESSAGE);
+    }
 }
@@ -0,0 +1,37 @@
+public class DiscountingContext {
+    private final double interestRate;
+    private final double riskNeutralProbability;
+
+    /**
+     * The one-step discounted expectation of a binomial tree, shared by every option priced with the same
+     * per-period rate r and risk-neutral probability q.
+     *
+     * @param interestRate           Risk-free interest rate per period (e.g., 0.05 for 5%).
+     * @param riskNeutralProbability Risk-neutral probability q of an up move.
+     */
+    public DiscountingContext(double interestRate, double riskNeutralProbability) {
+        if (riskNeutralProbability <= 0 || riskNeutralProbability >= 1) {
+            throw new IllegalArgumentException("Invalid risk-neutral probability; check model parameters");
+        }
+        this.interestRate = interestRate;
+        this.riskNeutralProbability = riskNeutralProbability;
+    }
+
+    /**
+     * @return {@code cached} if it has the model's rate and risk-neutral probability, otherwise a new context.
+     */
+    public static DiscountingContext reuseOrBuild(DiscountingContext cached, LatticeModel model) {
+        if (cached != null && cached.interestRate == model.getInterestRate()
+                && cached.riskNeutralProbability == model.getRiskNeutralProbability()) {
+            return cached;
+        }
+        return new DiscountingContext(model.getInterestRate(), model.getRiskNeutralProbability());
+    }
+
+    /**
+     * @return The value of a node whose successors are worth {@code payoffUp} and {@code payoffDown}.
+     */
+    public double expectedValue(double payoffUp, double payoffDown) {
+        return (payoffUp * riskNeutralProbability + payoffDown * (1 - riskNeutralProbability)) / (1 + interestRate);
+    }
+}
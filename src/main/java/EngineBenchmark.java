@@ -0,0 +1,348 @@
+import java.util.Arrays;
+
+public class EngineBenchmark {
+    // Contract used for every comparison: a one-year at-the-money-forward-ish put.
+    private static final double INITIAL_PRICE = 100;
+    private static final double STRIKE_PRICE = 105;
+    private static final double INTEREST_RATE = 0.05;
+    private static final double VOLATILITY = 0.2;
+    private static final double MATURITY = 1;
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int TIMED_RUNS = 7;
+
+    /**
+     * Compares the accuracy and wall-clock time of the pricing engines so the cheapest engine
+     * can be picked for each product. Results are printed as CSV on standard output; the last three columns
+     * are NaN where they do not apply.
+     */
+    public static void main(String[] args) {
+        System.out.println("Product,Engine,Resolution,Price,AbsError,TimeMs,ErrorBound,NodeShare,StdError");
+
+        // European put: the Black-Scholes price is exact.
+        double europeanReference = new BlackScholesModel(INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE,
+                VOLATILITY, MATURITY, false).getOptionPrice();
+        compareLatticeAndPde("EuropeanPut", false, europeanReference);
+
+        // American put: no closed form, use a very fine PDE grid as the reference.
+        double americanReference = new CrankNicolsonPricer(INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE,
+                VOLATILITY, MATURITY, false, true, 8000, 8000).getOptionPrice();
+        compareLatticeAndPde("AmericanPut", true, americanReference);
+
+        compareTrinomial(europeanReference, americanReference);
+        compareSchemes(europeanReference);
+        compareBarriers();
+        compareExerciseBand();
+        compareTruncation(europeanReference);
+        compareStrikeLadders();
+        compareSinglePrecision();
+        compareAsian();
+        compareTiling(europeanReference);
+        compareAdaptive(europeanReference);
+    }
+
+    /**
+     * Trinomial against binomial lattices at equal step counts. A trinomial row has 2n + 1 nodes against n + 1,
+     * and the binomial engine also skips settled regions, so compare the error each reaches in the same time.
+     */
+    private static void compareTrinomial(double europeanReference, double americanReference) {
+        PricingWorkspace workspace = new PricingWorkspace();
+        PricingEngine binomialEngine = new BinomialEngine();
+        PricingEngine trinomialEngine = new TrinomialEngine();
+        for (boolean isAmerican : new boolean[]{false, true}) {
+            String product = (isAmerican ? "American" : "European") + "Put";
+            double reference = isAmerican ? americanReference : europeanReference;
+            OptionContract put = new OptionContract(STRIKE_PRICE, false, isAmerican);
+            for (int steps = 100; steps <= 6400; steps *= 2) {
+                LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN,
+                        INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, steps).toModel(INITIAL_PRICE);
+                report(product, "Binomial", steps, reference, () -> binomialEngine.price(put, model, workspace));
+                report(product, "Trinomial", steps, reference, () -> trinomialEngine.price(put, model, workspace));
+            }
+        }
+    }
+
+    /**
+     * Lattice parameterizations: Leisen-Reimer with odd n converges at second order.
+     */
+    private static void compareSchemes(double europeanReference) {
+        for (LatticeParameters.Scheme scheme : LatticeParameters.Scheme.values()) {
+            for (int steps = 25; steps <= 1600; steps *= 2) {
+                int latticeSteps = steps + 1;
+                report("EuropeanPut", "FastBinomial-" + scheme, latticeSteps, europeanReference,
+                        () -> PricingDispatcher.priceOnLattice(INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE,
+                                VOLATILITY, MATURITY, false, false, latticeSteps, scheme));
+            }
+        }
+    }
+
+    /**
+     * Barriers: knocked-out nodes are pruned, so a knock-out should cost less than the vanilla option.
+     */
+    private static void compareBarriers() {
+        int alignedSteps = LatticeParameters.barrierAlignedSteps(INITIAL_PRICE, 110, VOLATILITY, MATURITY, 4000);
+        LatticeModel alignedModel = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN,
+                INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, alignedSteps).toModel(INITIAL_PRICE);
+        PricingWorkspace workspace = new PricingWorkspace();
+        BinomialEngine engine = new BinomialEngine();
+        OptionContract vanillaCall = new OptionContract(STRIKE_PRICE, true, false);
+        for (OptionContract.BarrierType type : OptionContract.BarrierType.values()) {
+            double level = type.isUp() ? 110 : 90;
+            OptionContract contract = type == OptionContract.BarrierType.NONE
+                    ? vanillaCall : vanillaCall.withBarrier(type, level);
+            engine.price(contract, alignedModel, workspace);
+            // No closed form for discretely monitored barriers, so the error column is left empty (NaN).
+            report("Call-" + type, "FastBinomial", alignedSteps, Double.NaN, Double.NaN,
+                    nodeShare(workspace, alignedSteps), Double.NaN,
+                    () -> engine.price(contract, alignedModel, workspace));
+        }
+    }
+
+    /**
+     * Long-dated American puts: the band between the exercise boundary and the zero region is all that is
+     * evaluated, so compare against visiting every node.
+     */
+    private static void compareExerciseBand() {
+        PricingWorkspace workspace = new PricingWorkspace();
+        BinomialEngine fullEngine = new BinomialEngine(false);
+        BinomialEngine bandEngine = new BinomialEngine();
+        OptionContract americanPut = new OptionContract(STRIKE_PRICE, false, true);
+        for (double maturity : new double[]{1, 10, 30}) {
+            for (int steps = 2000; steps <= 8000; steps *= 2) {
+                LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN,
+                        INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE, VOLATILITY, maturity, steps).toModel(INITIAL_PRICE);
+                String product = "AmericanPut-T" + maturity;
+                // The full lattice is the reference: skipping regions must not change the price.
+                double fullPrice = fullEngine.price(americanPut, model, workspace);
+                double fullShare = nodeShare(workspace, steps);
+                bandEngine.price(americanPut, model, workspace);
+                double bandShare = nodeShare(workspace, steps);
+                report(product, "FastBinomial-Full", steps, fullPrice, Double.NaN, fullShare, Double.NaN,
+                        () -> fullEngine.price(americanPut, model, workspace));
+                report(product, "FastBinomial-Band", steps, fullPrice, Double.NaN, bandShare, Double.NaN,
+                        () -> bandEngine.price(americanPut, model, workspace));
+            }
+        }
+    }
+
+    /**
+     * Truncated lattices: O(n sqrt(n)) work, with the engine's own bound on the truncation error.
+     */
+    private static void compareTruncation(double europeanReference) {
+        PricingWorkspace workspace = new PricingWorkspace();
+        TruncatedBinomialEngine truncatedEngine = new TruncatedBinomialEngine();
+        BinomialEngine engine = new BinomialEngine();
+        OptionContract europeanPut = new OptionContract(STRIKE_PRICE, false, false);
+        String truncatedName = String.format("Truncated-k%.0f", truncatedEngine.getStandardDeviations());
+        for (int steps = 10000; steps <= 100000; steps *= 10) {
+            for (int latticeSteps : new int[]{steps, 3 * steps}) {
+                LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN, INITIAL_PRICE,
+                        STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, latticeSteps).toModel(INITIAL_PRICE);
+                truncatedEngine.price(europeanPut, model, workspace);
+                report("EuropeanPut", truncatedName, latticeSteps, europeanReference, workspace.getErrorBound(),
+                        nodeShare(workspace, latticeSteps), Double.NaN,
+                        () -> truncatedEngine.price(europeanPut, model, workspace));
+                if (latticeSteps <= 30000) {
+                    report("EuropeanPut", "FastBinomial", latticeSteps, europeanReference,
+                            () -> engine.price(europeanPut, model, workspace));
+                }
+            }
+        }
+    }
+
+    /**
+     * Strike ladders: a 40-strike chain of calls and puts in one pass versus one tree per strike.
+     */
+    private static void compareStrikeLadders() {
+        int chainSize = 40;
+        double[] chainStrikes = new double[chainSize];
+        boolean[] chainIsCall = new boolean[chainSize];
+        for (int k = 0; k < chainSize; k++) {
+            chainStrikes[k] = 70 + 3 * (k / 2);
+            chainIsCall[k] = k % 2 == 0;
+        }
+        double[] chainPrices = new double[chainSize];
+        PricingWorkspace workspace = new PricingWorkspace();
+        StrikeLadderEngine ladderEngine = new StrikeLadderEngine();
+        BinomialEngine engine = new BinomialEngine();
+        LatticeModel chainModel = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN, INITIAL_PRICE,
+                STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, 2000).toModel(INITIAL_PRICE);
+        for (boolean isAmerican : new boolean[]{false, true}) {
+            String product = (isAmerican ? "American" : "European") + "Chain" + chainSize;
+            OptionContract[] chain = new OptionContract[chainSize];
+            for (int k = 0; k < chainSize; k++) {
+                chain[k] = new OptionContract(chainStrikes[k], chainIsCall[k], isAmerican);
+            }
+            // The engines report one price per call, so both rows show the sum over the chain.
+            report(product, "Ladder", chainModel.getSteps(), Double.NaN, () -> {
+                ladderEngine.priceLadder(chainModel, chainStrikes, chainIsCall, isAmerican, chainPrices, workspace);
+                return Arrays.stream(chainPrices).sum();
+            });
+            report(product, "FastBinomialPerStrike", chainModel.getSteps(), Double.NaN, () -> {
+                double sum = 0;
+                for (OptionContract contract : chain) {
+                    sum += engine.price(contract, chainModel, workspace);
+                }
+                return sum;
+            });
+        }
+    }
+
+    /**
+     * Single precision: error against the double-precision lattice (the reference) and the documented bound.
+     */
+    private static void compareSinglePrecision() {
+        PricingWorkspace workspace = new PricingWorkspace();
+        FloatBinomialEngine floatEngine = new FloatBinomialEngine(0);
+        BinomialEngine doubleEngine = new BinomialEngine(false);
+        OptionContract[] contracts = {
+                new OptionContract(STRIKE_PRICE, false, false), new OptionContract(STRIKE_PRICE, false, true)};
+        for (int steps = 2000; steps <= 32000; steps *= 4) {
+            LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN, INITIAL_PRICE,
+                    STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, steps).toModel(INITIAL_PRICE);
+            for (OptionContract contract : contracts) {
+                String product = (contract.isAmerican() ? "American" : "European") + "Put";
+                double doublePrice = doubleEngine.price(contract, model, workspace);
+                floatEngine.price(contract, model, workspace);
+                report(product, "Float", steps, doublePrice, workspace.getErrorBound(), Double.NaN, Double.NaN,
+                        () -> floatEngine.price(contract, model, workspace));
+                report(product, "Double", steps, doublePrice, () -> doubleEngine.price(contract, model, workspace));
+            }
+        }
+    }
+
+    /**
+     * Asian options: representative-average lattice against Monte Carlo on the same binomial dynamics.
+     */
+    private static void compareAsian() {
+        PricingWorkspace workspace = new PricingWorkspace();
+        LatticeParameters asianParameters = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN,
+                INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, 200);
+        LatticeModel asianModel = asianParameters.toModel(INITIAL_PRICE);
+        OptionContract averageCall = new OptionContract(STRIKE_PRICE, true, false);
+        MonteCarloPricer reference = monteCarloAverage(asianParameters, 4_000_000);
+        for (int averages = 8; averages <= 128; averages *= 2) {
+            AsianBinomialEngine asianEngine = new AsianBinomialEngine(averages);
+            report("AsianCall", "HullWhite-m" + averages, asianParameters.getSteps(), reference.getOptionPrice(),
+                    Double.NaN, Double.NaN, reference.getStandardError(),
+                    () -> asianEngine.price(averageCall, asianModel, workspace));
+        }
+        for (int paths = 100_000; paths <= 1_000_000; paths *= 10) {
+            int pathCount = paths;
+            report("AsianCall", "MonteCarlo", pathCount, reference.getOptionPrice(), Double.NaN, Double.NaN,
+                    monteCarloAverage(asianParameters, pathCount).getStandardError(),
+                    () -> monteCarloAverage(asianParameters, pathCount).getOptionPrice());
+        }
+    }
+
+    /**
+     * Temporal tiling: identical prices; the gap to the row-by-row loop grows once a row outgrows the cache.
+     * The parallel engine splits the same tiles across one thread per processor.
+     */
+    private static void compareTiling(double europeanReference) {
+        PricingWorkspace workspace = new PricingWorkspace();
+        PricingEngine rowEngine = new BinomialEngine(false);
+        PricingEngine tiledEngine = new TiledBinomialEngine();
+        ParallelBinomialEngine parallelEngine = new ParallelBinomialEngine();
+        OptionContract europeanPut = new OptionContract(STRIKE_PRICE, false, false);
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int steps = 12_500; steps <= 100_000; steps *= 2) {
+            LatticeModel largeModel = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN,
+                    INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, steps).toModel(INITIAL_PRICE);
+            report("EuropeanPut", "RowByRow", steps, europeanReference,
+                    () -> rowEngine.price(europeanPut, largeModel, workspace));
+            report("EuropeanPut", "Tiled", steps, europeanReference,
+                    () -> tiledEngine.price(europeanPut, largeModel, workspace));
+            report("EuropeanPut", "Parallel-" + threads + "threads", steps, europeanReference,
+                    () -> parallelEngine.price(europeanPut, largeModel, workspace));
+        }
+        parallelEngine.shutdown();
+    }
+
+    /**
+     * Adaptive step count: report the steps each tolerance needed and the achieved error.
+     */
+    private static void compareAdaptive(double europeanReference) {
+        PricingEngine engine = new BinomialEngine();
+        PricingWorkspace workspace = new PricingWorkspace();
+        OptionContract put = new OptionContract(STRIKE_PRICE, false, false);
+        for (LatticeParameters.Scheme scheme : new LatticeParameters.Scheme[]{
+                LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN, LatticeParameters.Scheme.LEISEN_REIMER}) {
+            for (int exponent = 2; exponent <= 4; exponent++) {
+                double target = Math.pow(10, -exponent);
+                AdaptiveLatticePricer adaptive = new AdaptiveLatticePricer(engine, scheme, put, INITIAL_PRICE,
+                        INTEREST_RATE, VOLATILITY, MATURITY, target, 0, workspace);
+                report("EuropeanPut", "Adaptive-" + scheme + "-tol" + target, adaptive.getSteps(), europeanReference,
+                        () -> new AdaptiveLatticePricer(engine, scheme, put, INITIAL_PRICE, INTEREST_RATE,
+                                VOLATILITY, MATURITY, target, 0, workspace).getOptionPrice());
+            }
+        }
+    }
+
+    /**
+     * @return The share of an n-step binomial lattice's nodes evaluated by the last pricing with the workspace.
+     */
+    private static double nodeShare(PricingWorkspace workspace, int steps) {
+        return (double) workspace.getNodesEvaluated() / ((long) steps * (steps + 1) / 2);
+    }
+
+    private static MonteCarloPricer monteCarloAverage(LatticeParameters parameters, long paths) {
+        return new MonteCarloPricer(INITIAL_PRICE, STRIKE_PRICE, parameters.getProbabilityUp(),
+                parameters.getUpFactor(), parameters.getDownFactor(), parameters.getInterestRate(), true,
+                parameters.getSteps(), MonteCarloPricer.Payoff.ARITHMETIC_AVERAGE, MonteCarloPricer.Dynamics.BINOMIAL,
+                paths, 42);
+    }
+
+    private static void compareLatticeAndPde(String product, boolean isAmerican, double reference) {
+        for (int steps = 100; steps <= 6400; steps *= 2) {
+            int latticeSteps = steps;
+            report(product, "FastBinomial", steps, reference, () -> PricingDispatcher.priceOnLattice(
+                    INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, false, isAmerican, latticeSteps));
+        }
+        for (int nodes = 50; nodes <= 1600; nodes *= 2) {
+            int gridNodes = nodes;
+            report(product, "CrankNicolson", nodes, reference, () -> new CrankNicolsonPricer(
+                    INITIAL_PRICE, STRIKE_PRICE, INTEREST_RATE, VOLATILITY, MATURITY, false, isAmerican,
+                    gridNodes, gridNodes).getOptionPrice());
+        }
+    }
+
+    /**
+     * Times a pricer and prints one CSV row with its median run time.
+     */
+    static void report(String product, String engine, int resolution, double reference, Pricer pricer) {
+        report(product, engine, resolution, reference, Double.NaN, Double.NaN, Double.NaN, pricer);
+    }
+
+    /**
+     * Times a pricer and prints one CSV row with its median run time and figures measured beforehand.
+     *
+     * @param errorBound    The engine's own bound on its error, such as the truncation or rounding bound.
+     * @param nodeShare     Nodes the engine evaluated, as a share of the lattice's; above 1 for knock-ins, which
+     *                      price the vanilla and the knock-out lattices.
+     * @param standardError Standard error of a Monte Carlo price, the pricer's own or the reference's.
+     */
+    static void report(String product, String engine, int resolution, double reference, double errorBound,
+                       double nodeShare, double standardError, Pricer pricer) {
+        double price = 0;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            price = pricer.price();
+        }
+        long[] times = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            price = pricer.price();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%s,%s,%d,%.8f,%.3e,%.4f,%.3e,%.4f,%.3e%n", product, engine, resolution, price,
+                Math.abs(price - reference), times[TIMED_RUNS / 2] / 1e6, errorBound, nodeShare, standardError);
+    }
+
+    /**
+     * A single timed pricing call.
+     */
+    interface Pricer {
+        double price();
+    }
+}
@@ -1,8 +1,10 @@
 public class FastMultiStepBinomialTree {
+    private static final PricingEngine ENGINE = new BinomialEngine();
+
     private final double optionPrice;
 
     /**
-     * Constructs the binomial tree and computes the option price.
+     * Constructs the binomial tree and computes the price of a European option.
      *
      * @param initialPrice  Initial asset price.
      * @param strikePrice   Strike price of the option.
@@ -16,46 +18,32 @@ public class FastMultiStepBinomialTree {
     public FastMultiStepBinomialTree(double initialPrice, double strikePrice, double probabilityUp,
                                  double upFactor, double downFactor, double interestRate,
                                  boolean isCall, int steps) {
-        // Validate inputs.
-        if (probabilityUp < 0 || probabilityUp > 1) {
-            throw new IllegalArgumentException("Probability must be between 0 and 1");
-        }
-        if (upFactor < downFactor) {
-            throw new IllegalArgumentException("Up factor must be greater than down factor");
-        }
-        if (steps <= 0) {
-            throw new IllegalArgumentException("Steps must be greater than zero");
-        }
-        if (upFactor <= interestRate + 1 || downFactor >= interestRate + 1) {
-            throw new IllegalArgumentException("Property u > 1 + r > d > 0 must hold");
-        }
-
-        // Compute risk-neutral probability.
-        double q = (1 + interestRate - downFactor) / (upFactor - downFactor);
-        if (q <= 0 || q >= 1) {
-            throw new IllegalArgumentException("Invalid risk-neutral probability; check model parameters");
-        }
-
-        // Allocate a 1D array for option values at maturity.
-        double[] optionValues = new double[steps + 1];
-
-        // Compute terminal payoffs.
-        for (int i = 0; i <= steps; i++) {
-            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
-            optionValues[i] = isCall ? Math.max(stockPrice - strikePrice, 0)
-                    : Math.max(strikePrice - stockPrice, 0);
-        }
-
-        // Backward induction (update in place).
-        for (int step = steps - 1; step >= 0; step--) {
-            for (int i = 0; i <= step; i++) {
-                optionValues[i] = (q * optionValues[i + 1] + (1 - q) * optionValues[i])
-                        / (1 + interestRate);
-            }
-        }
+        this(initialPrice, strikePrice, probabilityUp, upFactor, downFactor, interestRate, isCall, false, steps);
+    }
 
-        // The final option price.
-        optionPrice = optionValues[0];
+    /**
+     * Constructs the binomial tree and computes the option price, allowing early exercise.
+     * <p>
+     * This is a thin adapter over {@link BinomialEngine}; callers pricing repeatedly should use the engine
+     * directly with their own {@link PricingWorkspace} to avoid allocating a new row for every price.
+     *
+     * @param initialPrice  Initial asset price.
+     * @param strikePrice   Strike price of the option.
+     * @param probabilityUp The probability of the asset's value increasing in a single step.
+     * @param upFactor      Upward movement factor.
+     * @param downFactor    Downward movement factor.
+     * @param interestRate  Risk-free interest rate per period (e.g., 0.05 for 5%).
+     * @param isCall        True for Call option, False for Put option.
+     * @param isAmerican    True if the option may be exercised at any node, False for European exercise.
+     * @param steps         Number of steps in the tree.
+     */
+    public FastMultiStepBinomialTree(double initialPrice, double strikePrice, double probabilityUp,
+                                 double upFactor, double downFactor, double interestRate,
+                                 boolean isCall, boolean isAmerican, int steps) {
+        LatticeModel.checkProbability(probabilityUp);
+        LatticeModel model = new LatticeModel(initialPrice, upFactor, downFactor, interestRate, steps);
+        OptionContract contract = new OptionContract(strikePrice, isCall, isAmerican);
+        optionPrice = ENGINE.price(contract, model, new PricingWorkspace(steps + 1));
     }
 
     public double getOptionPrice() {
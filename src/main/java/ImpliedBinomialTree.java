@@ -0,0 +1,122 @@
+public class ImpliedBinomialTree {
+    // As in BinomialEngine.
+    private static final double NEGLIGIBLE_VALUE = 1e-250;
+
+    private final int maxSteps;
+    // Row t, node j at [t (t + 1) / 2 + j]: stock prices for rows 0..n, up-probabilities for rows 0..n-1.
+    private final double[] stockPrices;
+    private final double[] upProbabilities;
+    private int steps;
+    private double interestRate;
+    private double maxPricingError;
+    private int iterations;
+
+    /**
+     * Recombining binomial tree whose stock prices and up-probabilities vary from node to node, as fitted by an
+     * {@link ImpliedTreeCalibrator}. Storage for {@code maxSteps} steps is allocated once; the calibrator
+     * refits the tree in place on every call, so a tree must not be priced while its calibrator is running.
+     */
+    ImpliedBinomialTree(int maxSteps) {
+        this.maxSteps = maxSteps;
+        this.stockPrices = new double[(maxSteps + 1) * (maxSteps + 2) / 2];
+        this.upProbabilities = new double[maxSteps * (maxSteps + 1) / 2];
+    }
+
+    /**
+     * Backward induction over the implied tree: the same in-place row update as {@link BinomialEngine}, with the
+     * node's own up-probability and stock price in place of the constant q and S0 u^i d^(t - i).
+     *
+     * @param contract  The option to price; barrier contracts are not supported.
+     * @param workspace Scratch buffers owned by the calling thread.
+     * @return The price of the option at the root of the tree.
+     */
+    public double price(OptionContract contract, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Implied trees do not support barrier options");
+        }
+        if (steps == 0) {
+            throw new IllegalStateException("Tree has not been calibrated");
+        }
+        double discount = 1 / (1 + interestRate);
+        double[] optionValues = workspace.values(steps + 1);
+
+        int row = rowStart(steps);
+        for (int i = 0; i <= steps; i++) {
+            optionValues[i] = contract.payoff(stockPrices[row + i]);
+        }
+        for (int step = steps - 1; step >= 0; step--) {
+            row = rowStart(step);
+            for (int i = 0; i <= step; i++) {
+                double q = upProbabilities[row + i];
+                double value = discount * (q * optionValues[i + 1] + (1 - q) * optionValues[i]);
+                if (contract.isAmerican()) {
+                    value = Math.max(value, contract.payoff(stockPrices[row + i]));
+                }
+                optionValues[i] = value < NEGLIGIBLE_VALUE ? 0 : value;
+            }
+        }
+
+        workspace.setNodesEvaluated((long) steps * (steps + 1) / 2);
+        return optionValues[0];
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    /**
+     * @return The stock price at node {@code index} of row {@code step}.
+     */
+    public double getStockPrice(int step, int index) {
+        return stockPrices[rowStart(step) + index];
+    }
+
+    /**
+     * @return The risk-neutral probability of moving up from node {@code index} of row {@code step}.
+     */
+    public double getUpProbability(int step, int index) {
+        return upProbabilities[rowStart(step) + index];
+    }
+
+    /**
+     * @return The largest absolute difference between a quote and the tree's European price for it after the
+     * last calibration; large when the quotes admit arbitrage or the tree is too coarse to separate the strikes.
+     */
+    public double getMaxPricingError() {
+        return maxPricingError;
+    }
+
+    /**
+     * @return Newton iterations the last calibration took.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    int getMaxSteps() {
+        return maxSteps;
+    }
+
+    double[] stockPrices() {
+        return stockPrices;
+    }
+
+    double[] upProbabilities() {
+        return upProbabilities;
+    }
+
+    void setCalibration(int steps, double interestRate, double maxPricingError, int iterations) {
+        this.steps = steps;
+        this.interestRate = interestRate;
+        this.maxPricingError = maxPricingError;
+        this.iterations = iterations;
+    }
+
+    static int rowStart(int step) {
+        return step * (step + 1) / 2;
+    }
+}
@@ -0,0 +1,479 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ImpliedTreeCalibrator {
+    private static final int MAX_ITERATIONS = 100;
+    // Newton stops once the gradient of the dual, in undiscounted prices in units of S0, is below this.
+    private static final double TOLERANCE = 1e-9;
+    // Weight of the entropy against the quotes' squared residuals (in units of S0): the fit trades a residual of
+    // REGULARIZATION * lambda for bounded multipliers, since a discrete terminal row can rarely reproduce a
+    // smooth smile exactly.
+    private static final double REGULARIZATION = 1e-10;
+    // Sufficient decrease of the dual objective required by the line search.
+    private static final double ARMIJO = 1e-4;
+    private static final int MAX_HALVINGS = 40;
+    // Path weights are rescaled once a row's largest exceeds this, since they double with every step back.
+    private static final double RESCALE_LIMIT = 1e250;
+
+    private final ForkJoinPool pool;
+    private final int maxSteps;
+    private final int maxStrikes;
+    private final Fit[] fits;
+
+    /**
+     * Calibrates implied binomial trees to a surface of option quotes, one tree per expiry, refitting the same
+     * preallocated trees on every call so that it can run on each market update.
+     *
+     * @param expiries   Number of expiries, i.e. of trees, the calibrator keeps.
+     * @param maxSteps   Largest number of steps of any tree.
+     * @param maxStrikes Largest number of quotes of any expiry.
+     * @param threads    Threads of the calibrator's own pool; expiries are fitted in parallel.
+     */
+    public ImpliedTreeCalibrator(int expiries, int maxSteps, int maxStrikes, int threads) {
+        if (expiries <= 0 || maxSteps <= 0 || maxStrikes < 0 || threads <= 0) {
+            throw new IllegalArgumentException("Expiries, steps and threads must be positive");
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.maxSteps = maxSteps;
+        this.maxStrikes = maxStrikes;
+        this.fits = new Fit[expiries];
+        for (int e = 0; e < expiries; e++) {
+            fits[e] = new Fit(maxSteps, maxStrikes);
+        }
+    }
+
+    /**
+     * Fits one implied tree per expiry to its quotes, in the style of Rubinstein's implied binomial trees.
+     * <p>
+     * The terminal row keeps the node prices S0 u^i d^(n - i) of the expiry's prior model, and its risk-neutral
+     * distribution is the one closest to the prior's binomial distribution, in relative entropy, that reprices
+     * the forward exactly and the quotes up to a small quadratic penalty on their residuals. That distribution
+     * is prior_i exp(lambda . h(S_i)) / Z with one multiplier per constraint, found by a damped Newton
+     * iteration on the dual; each iteration costs O(n m^2) for m quotes,
+     * and the multipliers of the previous call are the starting point of the next, so a market update usually
+     * converges in a few iterations. The tree is then built backwards from the terminal distribution under
+     * Rubinstein's assumption that all paths to a terminal node are equally likely: a node's path weight is the
+     * sum of its two successors', its up-probability is the up successor's share of that sum, and its stock
+     * price is the discounted expectation of its successors'. Probabilities are in [0, 1] and stock prices
+     * are martingales by construction, and with no quotes the tree is the prior's.
+     * <p>
+     * The tree can only reprice strikes it can tell apart: use enough steps that few strikes share a gap
+     * between two terminal nodes, and check {@link ImpliedBinomialTree#getMaxPricingError()}.
+     *
+     * @param priors       Per expiry, the model giving the terminal node prices, the rate and the prior
+     *                     distribution, e.g. a Cox-Ross-Rubinstein model at the at-the-money volatility.
+     * @param strikePrices Per expiry, the strike of each quote.
+     * @param isCall       Per expiry, true for a call quote, false for a put quote.
+     * @param quotes       Per expiry, the market price of each European option.
+     */
+    public void calibrate(LatticeModel[] priors, double[][] strikePrices, boolean[][] isCall, double[][] quotes) {
+        int expiries = priors.length;
+        if (expiries > fits.length || strikePrices.length != expiries || isCall.length != expiries
+                || quotes.length != expiries) {
+            throw new IllegalArgumentException("One prior and one quote ladder per expiry are required");
+        }
+        for (int e = 0; e < expiries; e++) {
+            if (priors[e].getSteps() > maxSteps || strikePrices[e].length > maxStrikes) {
+                throw new IllegalArgumentException("Expiry " + e + " exceeds the calibrator's capacity");
+            }
+            if (isCall[e].length != strikePrices[e].length || quotes[e].length != strikePrices[e].length) {
+                throw new IllegalArgumentException("All ladder arrays must have the same length");
+            }
+        }
+        pool.invoke(new ExpiryRange(fits, priors, strikePrices, isCall, quotes, 0, expiries));
+    }
+
+    /**
+     * @return The tree of expiry {@code expiry}, refitted in place by every {@link #calibrate} call.
+     */
+    public ImpliedBinomialTree getTree(int expiry) {
+        return fits[expiry].tree;
+    }
+
+    /**
+     * Shuts the calibrator's pool down; it must not be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Buffers of one expiry, allocated once for the calibrator's capacity.
+     */
+    private static final class Fit {
+        private final ImpliedBinomialTree tree;
+        // Per terminal node.
+        private final double[] terminalPrices;
+        private final double[] logBinomial;
+        private final double[] logPathPrior;
+        private final double[] exponents;
+        private final double[] weights;
+        // Per constraint: the forward first, then the quotes.
+        private final double[] signs;
+        private final double[] strikes;
+        private final double[] targets;
+        private final double[] multipliers;
+        private final double[] trial;
+        private final double[] gradient;
+        private final double[] direction;
+        private final double[] features;
+        private final int[] active;
+        // Row-major (m + 1) x (m + 1).
+        private final double[] hessian;
+        private final double[] factor;
+        private int constraints;
+        private int nodes;
+        // Largest |E[h] - c| at the current multipliers.
+        private double maxResidual;
+        private double scale;
+
+        private Fit(int maxSteps, int maxStrikes) {
+            tree = new ImpliedBinomialTree(maxSteps);
+            terminalPrices = new double[maxSteps + 1];
+            logBinomial = new double[maxSteps + 1];
+            logPathPrior = new double[maxSteps + 1];
+            exponents = new double[maxSteps + 1];
+            weights = new double[maxSteps + 1];
+            int maxConstraints = maxStrikes + 1;
+            signs = new double[maxConstraints];
+            strikes = new double[maxConstraints];
+            targets = new double[maxConstraints];
+            multipliers = new double[maxConstraints];
+            trial = new double[maxConstraints];
+            gradient = new double[maxConstraints];
+            direction = new double[maxConstraints];
+            features = new double[maxConstraints];
+            active = new int[maxConstraints];
+            hessian = new double[maxConstraints * maxConstraints];
+            factor = new double[maxConstraints * maxConstraints];
+        }
+
+        private void calibrate(LatticeModel prior, double[] strikePrices, boolean[] isCall, double[] quotes) {
+            int steps = prior.getSteps();
+            double initialPrice = prior.getInitialPrice();
+            double upFactor = prior.getUpFactor();
+            double downFactor = prior.getDownFactor();
+            double q = prior.getRiskNeutralProbability();
+            double growth = Math.pow(1 + prior.getInterestRate(), steps);
+
+            int m = strikePrices.length + 1;
+            if (m != constraints || !allFinite(multipliers, m)) {
+                Arrays.fill(multipliers, 0, m, 0);
+            }
+            constraints = m;
+            nodes = steps + 1;
+            scale = initialPrice;
+
+            // Constraint 0 is the forward; features are payoffs in units of S0, targets undiscounted.
+            signs[0] = 0;
+            strikes[0] = 0;
+            targets[0] = growth;
+            for (int k = 1; k < m; k++) {
+                signs[k] = isCall[k - 1] ? 1 : -1;
+                strikes[k] = strikePrices[k - 1];
+                targets[k] = quotes[k - 1] * growth / initialPrice;
+            }
+
+            double logQ = Math.log(q);
+            double logOneMinusQ = Math.log(1 - q);
+            double logBinomialCoefficient = 0;
+            for (int i = 0; i <= steps; i++) {
+                terminalPrices[i] = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+                logBinomial[i] = logBinomialCoefficient;
+                logPathPrior[i] = i * logQ + (steps - i) * logOneMinusQ;
+                logBinomialCoefficient += Math.log((double) (steps - i) / (i + 1));
+            }
+
+            double value = evaluate(multipliers);
+            int iteration = 0;
+            while (true) {
+                double maxGradient = accumulate();
+                if (maxGradient <= TOLERANCE || iteration == MAX_ITERATIONS || !solve()) {
+                    break;
+                }
+                iteration++;
+                double slope = 0;
+                for (int k = 0; k < m; k++) {
+                    slope += gradient[k] * direction[k];
+                }
+                double alpha = 1;
+                boolean accepted = false;
+                for (int halving = 0; halving < MAX_HALVINGS && !accepted; halving++, alpha /= 2) {
+                    for (int k = 0; k < m; k++) {
+                        trial[k] = multipliers[k] + alpha * direction[k];
+                    }
+                    double trialValue = evaluate(trial);
+                    if (trialValue < value && trialValue <= value + ARMIJO * alpha * slope) {
+                        System.arraycopy(trial, 0, multipliers, 0, m);
+                        value = trialValue;
+                        accepted = true;
+                    }
+                }
+                if (!accepted) {
+                    // No further progress in double precision; restore the weights of the current multipliers.
+                    evaluate(multipliers);
+                    accumulate();
+                    break;
+                }
+            }
+
+            buildTree(prior, q);
+            tree.setCalibration(steps, prior.getInterestRate(), maxResidual * initialPrice / growth, iteration);
+        }
+
+        /**
+         * Sets the weights to the normalised distribution of the given multipliers.
+         *
+         * @return The dual objective ln Z - lambda . c + REGULARIZATION |lambda|^2 / 2, the forward excluded.
+         */
+        private double evaluate(double[] lambda) {
+            double largest = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < nodes; i++) {
+                double exponent = logBinomial[i] + logPathPrior[i] + dot(lambda, terminalPrices[i]);
+                exponents[i] = exponent;
+                largest = Math.max(largest, exponent);
+            }
+            double total = 0;
+            for (int i = 0; i < nodes; i++) {
+                weights[i] = Math.exp(exponents[i] - largest);
+                total += weights[i];
+            }
+            for (int i = 0; i < nodes; i++) {
+                weights[i] /= total;
+            }
+            double objective = largest + Math.log(total);
+            for (int k = 0; k < constraints; k++) {
+                objective -= lambda[k] * targets[k];
+                if (k > 0) {
+                    objective += 0.5 * REGULARIZATION * lambda[k] * lambda[k];
+                }
+            }
+            return objective;
+        }
+
+        /**
+         * Computes the gradient E[h] - c + REGULARIZATION lambda and the Hessian Cov[h] + REGULARIZATION I of the
+         * dual at the current multipliers, whose distribution the weights must hold, visiting only the features
+         * that are non-zero at each node. Records the largest constraint residual |E[h] - c|.
+         *
+         * @return The largest absolute component of the gradient.
+         */
+        private double accumulate() {
+            int m = constraints;
+            Arrays.fill(gradient, 0, m, 0);
+            Arrays.fill(hessian, 0, m * m, 0);
+            for (int i = 0; i < nodes; i++) {
+                double weight = weights[i];
+                if (weight == 0) {
+                    continue;
+                }
+                int count = activeFeatures(terminalPrices[i]);
+                for (int a = 0; a < count; a++) {
+                    int k = active[a];
+                    double weighted = weight * features[k];
+                    gradient[k] += weighted;
+                    int rowOffset = k * m;
+                    for (int b = a; b < count; b++) {
+                        hessian[rowOffset + active[b]] += weighted * features[active[b]];
+                    }
+                }
+            }
+            for (int k = 0; k < m; k++) {
+                for (int l = k; l < m; l++) {
+                    // activeFeatures lists indices in increasing order, so only the upper triangle was filled.
+                    double covariance = hessian[k * m + l] - gradient[k] * gradient[l];
+                    hessian[k * m + l] = covariance;
+                    hessian[l * m + k] = covariance;
+                }
+            }
+            maxResidual = 0;
+            double maxGradient = 0;
+            for (int k = 0; k < m; k++) {
+                gradient[k] -= targets[k];
+                maxResidual = Math.max(maxResidual, Math.abs(gradient[k]));
+                if (k > 0) {
+                    gradient[k] += REGULARIZATION * multipliers[k];
+                    hessian[k * m + k] += REGULARIZATION;
+                }
+                maxGradient = Math.max(maxGradient, Math.abs(gradient[k]));
+            }
+            return maxGradient;
+        }
+
+        /**
+         * Solves (H + mu I) direction = -gradient by Cholesky factorisation, raising the damping mu until the
+         * matrix is positive definite: quotes whose strikes share a gap between terminal nodes make H singular.
+         *
+         * @return False if no damping made the matrix factorisable.
+         */
+        private boolean solve() {
+            int m = constraints;
+            double largestDiagonal = 0;
+            for (int k = 0; k < m; k++) {
+                largestDiagonal = Math.max(largestDiagonal, hessian[k * m + k]);
+            }
+            if (!(largestDiagonal > 0)) {
+                return false;
+            }
+            for (double damping = 1e-14 * largestDiagonal; damping <= largestDiagonal; damping *= 100) {
+                if (factorise(damping)) {
+                    // Forward then back substitution with the lower factor L, L L^T = H + mu I.
+                    for (int k = 0; k < m; k++) {
+                        double sum = -gradient[k];
+                        for (int l = 0; l < k; l++) {
+                            sum -= factor[k * m + l] * direction[l];
+                        }
+                        direction[k] = sum / factor[k * m + k];
+                    }
+                    for (int k = m - 1; k >= 0; k--) {
+                        double sum = direction[k];
+                        for (int l = k + 1; l < m; l++) {
+                            sum -= factor[l * m + k] * direction[l];
+                        }
+                        direction[k] = sum / factor[k * m + k];
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean factorise(double damping) {
+            int m = constraints;
+            for (int k = 0; k < m; k++) {
+                for (int l = 0; l <= k; l++) {
+                    double sum = hessian[k * m + l] + (k == l ? damping : 0);
+                    for (int p = 0; p < l; p++) {
+                        sum -= factor[k * m + p] * factor[l * m + p];
+                    }
+                    if (k == l) {
+                        if (!(sum > 0)) {
+                            return false;
+                        }
+                        factor[k * m + k] = Math.sqrt(sum);
+                    } else {
+                        factor[k * m + l] = sum / factor[l * m + l];
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Builds the tree backwards from the fitted terminal distribution, with path weights in {@code weights}.
+         */
+        private void buildTree(LatticeModel prior, double priorQ) {
+            int steps = nodes - 1;
+            double discount = 1 / (1 + prior.getInterestRate());
+            double[] stockPrices = tree.stockPrices();
+            double[] upProbabilities = tree.upProbabilities();
+
+            // Each of the C(n, i) paths to terminal node i carries weight_i / C(n, i).
+            double largest = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < nodes; i++) {
+                exponents[i] -= logBinomial[i];
+                largest = Math.max(largest, exponents[i]);
+            }
+            int row = ImpliedBinomialTree.rowStart(steps);
+            for (int i = 0; i < nodes; i++) {
+                weights[i] = Math.exp(exponents[i] - largest);
+                stockPrices[row + i] = terminalPrices[i];
+            }
+
+            for (int step = steps - 1; step >= 0; step--) {
+                int nextRow = row;
+                row = ImpliedBinomialTree.rowStart(step);
+                double peak = 0;
+                for (int j = 0; j <= step; j++) {
+                    double pathWeight = weights[j] + weights[j + 1];
+                    // Nodes no path reaches keep the prior's probability, which keeps their prices consistent.
+                    double q = pathWeight > 0 ? weights[j + 1] / pathWeight : priorQ;
+                    upProbabilities[row + j] = q;
+                    stockPrices[row + j] = discount * ((1 - q) * stockPrices[nextRow + j]
+                            + q * stockPrices[nextRow + j + 1]);
+                    weights[j] = pathWeight;
+                    peak = Math.max(peak, pathWeight);
+                }
+                if (peak > RESCALE_LIMIT) {
+                    for (int j = 0; j <= step; j++) {
+                        weights[j] /= peak;
+                    }
+                }
+            }
+        }
+
+        private double dot(double[] lambda, double stockPrice) {
+            int count = activeFeatures(stockPrice);
+            double sum = 0;
+            for (int a = 0; a < count; a++) {
+                sum += lambda[active[a]] * features[active[a]];
+            }
+            return sum;
+        }
+
+        /**
+         * Fills {@code features} with h(S) and {@code active} with the indices, in increasing order, where it is
+         * non-zero.
+         *
+         * @return The number of non-zero features.
+         */
+        private int activeFeatures(double stockPrice) {
+            int count = 0;
+            features[0] = stockPrice / scale;
+            active[count++] = 0;
+            for (int k = 1; k < constraints; k++) {
+                double payoff = signs[k] * (stockPrice - strikes[k]);
+                if (payoff > 0) {
+                    features[k] = payoff / scale;
+                    active[count++] = k;
+                }
+            }
+            return count;
+        }
+
+        private static boolean allFinite(double[] values, int length) {
+            for (int k = 0; k < length; k++) {
+                if (!Double.isFinite(values[k])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Fits expiries [from, to), splitting the range across the pool.
+     */
+    private static final class ExpiryRange extends RecursiveAction {
+        private final Fit[] fits;
+        private final LatticeModel[] priors;
+        private final double[][] strikePrices;
+        private final boolean[][] isCall;
+        private final double[][] quotes;
+        private final int from;
+        private final int to;
+
+        private ExpiryRange(Fit[] fits, LatticeModel[] priors, double[][] strikePrices, boolean[][] isCall,
+                            double[][] quotes, int from, int to) {
+            this.fits = fits;
+            this.priors = priors;
+            this.strikePrices = strikePrices;
+            this.isCall = isCall;
+            this.quotes = quotes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpiryRange(fits, priors, strikePrices, isCall, quotes, from, middle),
+                        new ExpiryRange(fits, priors, strikePrices, isCall, quotes, middle, to));
+            } else if (to > from) {
+                fits[from].calibrate(priors[from], strikePrices[from], isCall[from], quotes[from]);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+public class LatencyHistogram {
+    // 2^7 sub-buckets per power of two: recorded values are kept to within 1% relative error.
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long totalCount;
+    private long maxValue;
+
+    /**
+     * Fixed-size log-linear histogram of non-negative values, typically latencies in nanoseconds.
+     * Recording is O(1) and allocation-free; the memory footprint (about 60 KB) does not depend on the
+     * number or range of values recorded. Not thread-safe: each recording thread owns its histogram
+     * and histograms are merged with {@link #add(LatencyHistogram)}.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * @param value Value to record; negative values are recorded as zero.
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        counts[bucket(clamped)]++;
+        totalCount++;
+        maxValue = Math.max(maxValue, clamped);
+    }
+
+    /**
+     * Adds every value recorded in {@code other} to this histogram.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        maxValue = 0;
+    }
+
+    /**
+     * @param quantile Quantile between 0 and 1 (e.g., 0.999 for the 99.9th percentile).
+     * @return The recorded value at that quantile, to within the bucket resolution; zero if nothing was recorded.
+     */
+    public long valueAtQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueInBucket(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Values below 2^7 get a bucket each; above that, each power of two is split into 2^7 equal buckets.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long highestValueInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,113 @@
+public class LatticeModel {
+    /**
+     * Largest node price {@link #nodePrice(int, int)} returns; prices beyond it are held there, far enough below
+     * the double range that discounted sums of such values cannot overflow.
+     */
+    public static final double MAX_NODE_PRICE = 1e300;
+
+    private final double initialPrice;
+    private final double upFactor;
+    private final double downFactor;
+    private final double interestRate;
+    private final int steps;
+    private final double riskNeutralProbability;
+    private final double logInitialPrice;
+    private final double logDownFactor;
+    private final double logUpOverDown;
+
+    /**
+     * Immutable, validated description of the discrete u/d/r market shared by the lattice engines.
+     *
+     * @param initialPrice Initial asset price.
+     * @param upFactor     Upward movement factor.
+     * @param downFactor   Downward movement factor.
+     * @param interestRate Risk-free interest rate per period (e.g., 0.05 for 5%).
+     * @param steps        Number of steps in the tree.
+     */
+    public LatticeModel(double initialPrice, double upFactor, double downFactor, double interestRate, int steps) {
+        // Validate inputs.
+        if (upFactor < downFactor) {
+            throw new IllegalArgumentException("Up factor must be greater than down factor");
+        }
+        if (steps <= 0) {
+            throw new IllegalArgumentException("Steps must be greater than zero");
+        }
+        if (upFactor <= interestRate + 1 || downFactor >= interestRate + 1) {
+            throw new IllegalArgumentException("Property u > 1 + r > d > 0 must hold");
+        }
+
+        // Compute risk-neutral probability.
+        double q = (1 + interestRate - downFactor) / (upFactor - downFactor);
+        if (q <= 0 || q >= 1) {
+            throw new IllegalArgumentException("Invalid risk-neutral probability; check model parameters");
+        }
+
+        this.initialPrice = initialPrice;
+        this.upFactor = upFactor;
+        this.downFactor = downFactor;
+        this.interestRate = interestRate;
+        this.steps = steps;
+        this.riskNeutralProbability = q;
+        this.logInitialPrice = Math.log(initialPrice);
+        this.logDownFactor = Math.log(downFactor);
+        this.logUpOverDown = Math.log(upFactor / downFactor);
+    }
+
+    /**
+     * @return The asset price after {@code index} up and {@code step - index} down moves, computed as
+     * exp(ln S0 + step ln d + index ln(u / d)). Unlike S0 u^index d^(step - index), no intermediate power
+     * overflows or underflows however deep the tree; the result is clamped to {@link #MAX_NODE_PRICE}.
+     */
+    public double nodePrice(int step, int index) {
+        return Math.min(MAX_NODE_PRICE, Math.exp(logNodePrice(step, index)));
+    }
+
+    /**
+     * @return ln of the asset price at node {@code index} of row {@code step}.
+     */
+    public double logNodePrice(int step, int index) {
+        return logInitialPrice + step * logDownFactor + index * logUpOverDown;
+    }
+
+    /**
+     * Checks the real-world probability still taken by the tree constructors. It does not affect
+     * risk-neutral prices but is validated for compatibility with the original API.
+     */
+    public static void checkProbability(double probabilityUp) {
+        if (probabilityUp < 0 || probabilityUp > 1) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1");
+        }
+    }
+
+    /**
+     * @return A model with the same market but a different number of steps.
+     */
+    public LatticeModel withSteps(int steps) {
+        return new LatticeModel(initialPrice, upFactor, downFactor, interestRate, steps);
+    }
+
+    // Getter methods
+    public double getInitialPrice() {
+        return initialPrice;
+    }
+
+    public double getUpFactor() {
+        return upFactor;
+    }
+
+    public double getDownFactor() {
+        return downFactor;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public double getRiskNeutralProbability() {
+        return riskNeutralProbability;
+    }
+}
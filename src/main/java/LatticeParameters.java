@@ -0,0 +1,194 @@
+public class LatticeParameters {
+
+    /**
+     * Rule used to derive the up and down factors from the volatility.
+     */
+    public enum Scheme {
+        /** Cox-Ross-Rubinstein: u = exp(sigma sqrt(dt)), d = 1 / u. */
+        COX_ROSS_RUBINSTEIN,
+        /** Jarrow-Rudd: factors centred on the risk-neutral log drift, so q is close to 1/2. */
+        JARROW_RUDD,
+        /** Tian: factors matching the first three moments of the lognormal step. */
+        TIAN,
+        /** Leisen-Reimer: probabilities from the Peizer-Pratt inversion of d1 and d2; needs an odd step count. */
+        LEISEN_REIMER
+    }
+
+    private final Scheme scheme;
+    private final double upFactor;
+    private final double downFactor;
+    private final double interestRate;
+    private final double probabilityUp;
+    private final int steps;
+
+    /**
+     * Derives the per-step lattice parameters of a Black-Scholes market.
+     * <p>
+     * The interest rate per step is {@code exp(r dt) - 1}, so the risk-neutral probability the lattice engines
+     * compute from {@code (1 + r - d) / (u - d)} is exactly the probability of the chosen scheme. Leisen-Reimer
+     * is only defined for an odd number of steps; an even count is rounded up to the next odd number and
+     * {@link #getSteps()} reports the count actually used.
+     *
+     * @param scheme       Rule used to derive the factors.
+     * @param initialPrice Initial asset price (only used by Leisen-Reimer).
+     * @param strikePrice  Strike price of the option (only used by Leisen-Reimer).
+     * @param interestRate Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility   Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity     Time to maturity in years.
+     * @param steps        Number of steps in the tree.
+     */
+    public LatticeParameters(Scheme scheme, double initialPrice, double strikePrice, double interestRate,
+                             double volatility, double maturity, int steps) {
+        if (volatility <= 0 || maturity <= 0) {
+            throw new IllegalArgumentException("Volatility and maturity must be greater than zero");
+        }
+        if (steps <= 0) {
+            throw new IllegalArgumentException("Steps must be greater than zero");
+        }
+        if (scheme == Scheme.LEISEN_REIMER && (initialPrice <= 0 || strikePrice <= 0)) {
+            throw new IllegalArgumentException("Initial price and strike price must be positive");
+        }
+
+        this.scheme = scheme;
+        this.steps = scheme == Scheme.LEISEN_REIMER && steps % 2 == 0 ? steps + 1 : steps;
+
+        double stepLength = maturity / this.steps;
+        double growth = Math.exp(interestRate * stepLength);
+        double volatilitySqrtStep = volatility * Math.sqrt(stepLength);
+
+        switch (scheme) {
+            case COX_ROSS_RUBINSTEIN:
+                upFactor = Math.exp(volatilitySqrtStep);
+                downFactor = 1 / upFactor;
+                break;
+            case JARROW_RUDD: {
+                double drift = (interestRate - volatility * volatility / 2) * stepLength;
+                upFactor = Math.exp(drift + volatilitySqrtStep);
+                downFactor = Math.exp(drift - volatilitySqrtStep);
+                break;
+            }
+            case TIAN: {
+                double v = Math.exp(volatility * volatility * stepLength);
+                double root = Math.sqrt(v * v + 2 * v - 3);
+                upFactor = growth * v / 2 * (v + 1 + root);
+                downFactor = growth * v / 2 * (v + 1 - root);
+                break;
+            }
+            case LEISEN_REIMER: {
+                double sqrtMaturity = Math.sqrt(maturity);
+                double d1 = (Math.log(initialPrice / strikePrice)
+                        + (interestRate + volatility * volatility / 2) * maturity) / (volatility * sqrtMaturity);
+                double d2 = d1 - volatility * sqrtMaturity;
+                double p = peizerPratt(d2, this.steps);
+                double pPrime = peizerPratt(d1, this.steps);
+                upFactor = growth * pPrime / p;
+                downFactor = (growth - p * upFactor) / (1 - p);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown lattice scheme: " + scheme);
+        }
+
+        this.interestRate = growth - 1;
+        probabilityUp = (growth - downFactor) / (upFactor - downFactor);
+        if (probabilityUp <= 0 || probabilityUp >= 1) {
+            throw new IllegalArgumentException("Invalid risk-neutral probability; check model parameters");
+        }
+    }
+
+    /**
+     * Chooses a Cox-Ross-Rubinstein step count that places a barrier just beyond a layer of nodes
+     * (Boyle and Lau, 1994). Barrier prices on such lattices converge smoothly instead of oscillating
+     * with the distance between the barrier and the nearest node layer.
+     *
+     * @param initialPrice Initial asset price.
+     * @param barrierLevel Stock price at which the barrier is triggered.
+     * @param volatility   Annualised volatility of the asset.
+     * @param maturity     Time to maturity in years.
+     * @param minimumSteps Smallest acceptable number of steps.
+     * @return The smallest aligned step count that is at least {@code minimumSteps}.
+     */
+    public static int barrierAlignedSteps(double initialPrice, double barrierLevel, double volatility,
+                                          double maturity, int minimumSteps) {
+        if (initialPrice <= 0 || barrierLevel <= 0 || volatility <= 0 || maturity <= 0 || minimumSteps <= 0) {
+            throw new IllegalArgumentException("Prices, volatility, maturity and steps must be positive");
+        }
+        double logDistance = Math.abs(Math.log(initialPrice / barrierLevel));
+        if (logDistance == 0) {
+            return minimumSteps;
+        }
+        // n(m) = floor(m^2 sigma^2 T / ln(S0 / H)^2) puts the barrier m node layers away from S0.
+        double scale = volatility * volatility * maturity / (logDistance * logDistance);
+        long layers = Math.max(1, (long) Math.floor(Math.sqrt(minimumSteps / scale)));
+        while ((long) Math.floor(layers * layers * scale) < minimumSteps) {
+            layers++;
+        }
+        long steps = (long) Math.floor(layers * layers * scale);
+        if (steps > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Barrier too far from the initial price to align the lattice");
+        }
+        return (int) steps;
+    }
+
+    /**
+     * Peizer-Pratt method 2 inversion, mapping a normal quantile to a binomial probability for n steps.
+     */
+    private static double peizerPratt(double z, int n) {
+        double ratio = z / (n + 1.0 / 3 + 0.1 / (n + 1));
+        double root = Math.sqrt(0.25 - 0.25 * Math.exp(-ratio * ratio * (n + 1.0 / 6)));
+        return z >= 0 ? 0.5 + root : 0.5 - root;
+    }
+
+    /**
+     * @param initialPrice Initial asset price.
+     * @return The lattice model these parameters describe, ready for any {@link PricingEngine}.
+     */
+    public LatticeModel toModel(double initialPrice) {
+        return new LatticeModel(initialPrice, upFactor, downFactor, interestRate, steps);
+    }
+
+    /**
+     * Prices an option on a {@link FastMultiStepBinomialTree} built from these parameters.
+     *
+     * @param initialPrice Initial asset price.
+     * @param strikePrice  Strike price of the option.
+     * @param isCall       True for Call option, False for Put option.
+     * @param isAmerican   True for American exercise, False for European exercise.
+     * @return The option price.
+     */
+    public double priceWithFastTree(double initialPrice, double strikePrice, boolean isCall, boolean isAmerican) {
+        return new FastMultiStepBinomialTree(initialPrice, strikePrice, probabilityUp, upFactor, downFactor,
+                interestRate, isCall, isAmerican, steps).getOptionPrice();
+    }
+
+    // Getter methods
+    public Scheme getScheme() {
+        return scheme;
+    }
+
+    public double getUpFactor() {
+        return upFactor;
+    }
+
+    public double getDownFactor() {
+        return downFactor;
+    }
+
+    /**
+     * @return The discrete risk-free rate per step, in the form expected by the lattice engines.
+     */
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    /**
+     * @return The risk-neutral probability of an up move.
+     */
+    public double getProbabilityUp() {
+        return probabilityUp;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+}
@@ -0,0 +1,363 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadHarness {
+    private static final String DEFAULT_MIX =
+            "binomial-european-put:500:4,binomial-american-put:2000:2,trinomial-european-call:400:2,ladder-american:1000:1";
+    private static final int LADDER_SIZE = 40;
+
+    /**
+     * Runs a fixed-rate, multi-threaded pricing load for a set duration and reports throughput, latency
+     * percentiles and garbage-collection pauses, so the pricers can be soak-tested under production-like load.
+     * <p>
+     * The load is open-loop: each thread follows its own schedule of intended start times at rate / threads
+     * requests per second, and latency is measured from the intended start rather than from when the request
+     * actually began. A stalled pricer therefore shows up as the queueing delay every request scheduled behind
+     * it suffered, instead of silently lowering the request rate (coordinated omission). The service time alone
+     * is reported next to it for comparison. Requests still queued when the run ends are never issued but are
+     * recorded at the time they had already waited, a lower bound on their latency, so an overloaded run cannot
+     * hide its backlog by stopping; they are not counted as completed.
+     * <p>
+     * Arguments are {@code key=value} pairs, all optional:
+     * <ul>
+     *     <li>{@code threads} - worker threads (default: available processors);</li>
+     *     <li>{@code rate} - total target requests per second (default 200);</li>
+     *     <li>{@code seconds} - run duration (default 60);</li>
+     *     <li>{@code report} - seconds between interval reports (default 10);</li>
+     *     <li>{@code mix} - comma-separated {@code engine-exercise-type:steps:weight} entries, where engine is
+     *     binomial, trinomial or truncated and type is call or put, or {@code ladder-exercise:steps:weight}
+     *     for a {@value #LADDER_SIZE}-strike chain (default {@value #DEFAULT_MIX}).</li>
+     * </ul>
+     * Output is CSV on standard output: one row per interval and a final "total" row. GC figures are the
+     * collection counts and times of the GC MXBeans over the interval; with the Serial, Parallel and G1
+     * collectors these beans time the stop-the-world pauses only.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        double rate = 200;
+        double seconds = 60;
+        double reportSeconds = 10;
+        String mix = DEFAULT_MIX;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Arguments must be key=value pairs: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            switch (key) {
+                case "threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "seconds":
+                    seconds = Double.parseDouble(value);
+                    break;
+                case "report":
+                    reportSeconds = Double.parseDouble(value);
+                    break;
+                case "mix":
+                    mix = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + key);
+            }
+        }
+        if (threads <= 0 || rate <= 0 || seconds <= 0 || reportSeconds <= 0) {
+            throw new IllegalArgumentException("Threads, rate, duration and report interval must be positive");
+        }
+
+        Scenario[] scenarios = parseMix(mix);
+        long interval = Math.max(1, (long) (1e9 * threads / rate));
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long end = start + (long) (seconds * 1e9);
+
+        Worker[] workers = new Worker[threads];
+        CountDownLatch finished = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            // Stagger the threads' schedules so the requests are spread evenly over each interval.
+            workers[t] = new Worker(scenarios, start + interval * t / threads, interval, end, t, finished);
+            Thread thread = new Thread(workers[t], "load-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        System.out.println("Interval,ElapsedS,Completed,ThroughputPerS,P50Us,P99Us,P999Us,MaxUs,"
+                + "ServiceP50Us,ServiceP99Us,GcCount,GcPauseMs");
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram service = new LatencyHistogram();
+        LatencyHistogram totalLatency = new LatencyHistogram();
+        LatencyHistogram totalService = new LatencyHistogram();
+        long[] gcAtStart = gcTotals();
+        long[] gcAtReport = gcAtStart;
+        long reportStart = start;
+        long reportNanos = (long) (reportSeconds * 1e9);
+        boolean done = false;
+        while (!done) {
+            done = finished.await(reportNanos, TimeUnit.NANOSECONDS);
+            long now = System.nanoTime();
+            latency.reset();
+            service.reset();
+            for (Worker worker : workers) {
+                worker.drainInto(latency, service);
+            }
+            totalLatency.add(latency);
+            totalService.add(service);
+            long[] gc = gcTotals();
+            print("interval", (now - start) / 1e9, now - reportStart, latency, service,
+                    gc[0] - gcAtReport[0], gc[1] - gcAtReport[1]);
+            gcAtReport = gc;
+            reportStart = now;
+        }
+        long[] gc = gcTotals();
+        print("total", (System.nanoTime() - start) / 1e9, System.nanoTime() - start, totalLatency, totalService,
+                gc[0] - gcAtStart[0], gc[1] - gcAtStart[1]);
+        long late = 0;
+        long unissued = 0;
+        for (Worker worker : workers) {
+            late += worker.getLateStarts();
+            unissued += worker.getUnissued();
+        }
+        System.out.printf("# target rate %.1f/s over %d threads; %d requests started more than 1 ms late, "
+                + "%d were still queued at the end and are in the latency percentiles at their wait so far%n",
+                rate, threads, late, unissued);
+    }
+
+    private static void print(String label, double elapsedSeconds, long periodNanos, LatencyHistogram latency,
+                              LatencyHistogram service, long gcCount, long gcMillis) {
+        System.out.printf("%s,%.1f,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%d,%d%n", label, elapsedSeconds,
+                service.getTotalCount(), service.getTotalCount() / (Math.max(1, periodNanos) / 1e9),
+                latency.valueAtQuantile(0.5) / 1e3, latency.valueAtQuantile(0.99) / 1e3,
+                latency.valueAtQuantile(0.999) / 1e3, latency.getMaxValue() / 1e3,
+                service.valueAtQuantile(0.5) / 1e3, service.valueAtQuantile(0.99) / 1e3, gcCount, gcMillis);
+    }
+
+    /**
+     * @return Total collection count and collection time in milliseconds over all garbage collectors.
+     */
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+
+    static Scenario[] parseMix(String mix) {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] fields = entry.trim().split(":");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Mix entries must look like engine-exercise-type:steps:weight: " + entry);
+            }
+            String[] kind = fields[0].split("-");
+            int steps = Integer.parseInt(fields[1]);
+            double weight = Double.parseDouble(fields[2]);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Mix weights must be positive: " + entry);
+            }
+            scenarios.add(new Scenario(fields[0], kind, steps, weight));
+        }
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one entry");
+        }
+        return scenarios.toArray(new Scenario[0]);
+    }
+
+    /**
+     * One kind of request in the mix: a contract priced by an engine at a given step count.
+     */
+    static final class Scenario {
+        private final String name;
+        private final PricingEngine engine;
+        private final OptionContract contract;
+        private final LatticeModel model;
+        private final boolean isLadder;
+        private final boolean isAmerican;
+        private final double weight;
+
+        Scenario(String name, String[] kind, int steps, double weight) {
+            this.name = name;
+            this.weight = weight;
+            model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN, 100, 105, 0.05, 0.2, 1, steps)
+                    .toModel(100);
+            isLadder = kind[0].equals("ladder");
+            if (isLadder) {
+                if (kind.length != 2) {
+                    throw new IllegalArgumentException("Ladder entries look like ladder-exercise: " + name);
+                }
+                isAmerican = parseExercise(kind[1]);
+                engine = null;
+                contract = null;
+                return;
+            }
+            if (kind.length != 3) {
+                throw new IllegalArgumentException("Contract entries look like engine-exercise-type: " + name);
+            }
+            switch (kind[0]) {
+                case "binomial":
+                    engine = new BinomialEngine();
+                    break;
+                case "trinomial":
+                    engine = new TrinomialEngine();
+                    break;
+                case "truncated":
+                    engine = new TruncatedBinomialEngine();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown engine: " + kind[0]);
+            }
+            isAmerican = parseExercise(kind[1]);
+            if (!kind[2].equals("call") && !kind[2].equals("put")) {
+                throw new IllegalArgumentException("Option type must be call or put: " + kind[2]);
+            }
+            contract = new OptionContract(105, kind[2].equals("call"), isAmerican);
+        }
+
+        private static boolean parseExercise(String exercise) {
+            if (!exercise.equals("american") && !exercise.equals("european")) {
+                throw new IllegalArgumentException("Exercise must be american or european: " + exercise);
+            }
+            return exercise.equals("american");
+        }
+
+        double run(PricingWorkspace workspace, StrikeLadderEngine ladderEngine, double[] ladderStrikes,
+                   boolean[] ladderIsCall, double[] ladderPrices) {
+            if (isLadder) {
+                ladderEngine.priceLadder(model, ladderStrikes, ladderIsCall, isAmerican, ladderPrices, workspace);
+                return ladderPrices[0];
+            }
+            return engine.price(contract, model, workspace);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Issues requests on a fixed schedule and records their latencies into histograms it shares only with
+     * the reporting thread.
+     */
+    private static final class Worker implements Runnable {
+        private static final long LATE_START_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final Scenario[] scenarios;
+        private final double[] cumulativeWeights;
+        private final long firstStart;
+        private final long interval;
+        private final long end;
+        private final SplittableRandom random;
+        private final CountDownLatch finished;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private long lateStarts;
+        private long unissued;
+        // Keeps the JIT from discarding the pricing calls.
+        private double checksum;
+
+        Worker(Scenario[] scenarios, long firstStart, long interval, long end, int index, CountDownLatch finished) {
+            this.scenarios = scenarios;
+            this.firstStart = firstStart;
+            this.interval = interval;
+            this.end = end;
+            this.finished = finished;
+            random = new SplittableRandom(index);
+            cumulativeWeights = new double[scenarios.length];
+            double total = 0;
+            for (int i = 0; i < scenarios.length; i++) {
+                total += scenarios[i].weight;
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        @Override
+        public void run() {
+            PricingWorkspace workspace = new PricingWorkspace();
+            StrikeLadderEngine ladderEngine = new StrikeLadderEngine();
+            double[] ladderStrikes = new double[LADDER_SIZE];
+            boolean[] ladderIsCall = new boolean[LADDER_SIZE];
+            double[] ladderPrices = new double[LADDER_SIZE];
+            for (int k = 0; k < LADDER_SIZE; k++) {
+                ladderStrikes[k] = 70 + 3 * (k / 2);
+                ladderIsCall[k] = k % 2 == 0;
+            }
+            double totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+            try {
+                for (long request = 0; ; request++) {
+                    long intendedStart = firstStart + request * interval;
+                    if (intendedStart >= end) {
+                        break;
+                    }
+                    long now = System.nanoTime();
+                    if (now >= end) {
+                        // Overloaded: rather than run the backlog, record what the requests still due have
+                        // waited so far, which they would at least have had to wait.
+                        synchronized (this) {
+                            for (; intendedStart < end; intendedStart += interval) {
+                                latency.record(now - intendedStart);
+                                unissued++;
+                            }
+                        }
+                        break;
+                    }
+                    while (now < intendedStart) {
+                        LockSupport.parkNanos(intendedStart - now);
+                        now = System.nanoTime();
+                    }
+                    Scenario scenario = pick(random.nextDouble() * totalWeight);
+                    long actualStart = System.nanoTime();
+                    checksum += scenario.run(workspace, ladderEngine, ladderStrikes, ladderIsCall, ladderPrices);
+                    long completed = System.nanoTime();
+                    synchronized (this) {
+                        latency.record(completed - intendedStart);
+                        service.record(completed - actualStart);
+                        if (actualStart - intendedStart > LATE_START_NANOS) {
+                            lateStarts++;
+                        }
+                    }
+                }
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private Scenario pick(double draw) {
+            for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+                if (draw < cumulativeWeights[i]) {
+                    return scenarios[i];
+                }
+            }
+            return scenarios[scenarios.length - 1];
+        }
+
+        /**
+         * Moves the latencies recorded since the last call into the given histograms.
+         */
+        synchronized void drainInto(LatencyHistogram latencyTotal, LatencyHistogram serviceTotal) {
+            latencyTotal.add(latency);
+            serviceTotal.add(service);
+            latency.reset();
+            service.reset();
+        }
+
+        synchronized long getLateStarts() {
+            return lateStarts;
+        }
+
+        synchronized long getUnissued() {
+            return unissued;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+public class LogSpaceBinomialEngine implements PricingEngine {
+    /**
+     * Largest |ln| of the powers u^n and d^n for which the direct engines' S0 u^i d^(n - i) and S0 d^n stay
+     * comfortably inside the double range; deeper trees need log-space node prices.
+     */
+    static final double DIRECT_POWER_LIMIT = 600;
+
+    // Node prices are recomputed from their log offset every this many nodes and carried by multiplication in
+    // between, so rounding cannot accumulate over a row however long it is.
+    private static final int ANCHOR_NODES = 256;
+    // Below this a node price is treated as zero.
+    private static final double MIN_NODE_PRICE = 1e-300;
+    private static final double LOG_MIN_NODE_PRICE = Math.log(MIN_NODE_PRICE);
+    // Slightly inside the limit, so that rounding of the carried prices cannot cross it.
+    private static final double LOG_MAX_NODE_PRICE = Math.log(LatticeModel.MAX_NODE_PRICE) - 1e-6;
+
+    /**
+     * Backward induction on a recombining binomial tree whose node prices come from log-spot offsets, for trees
+     * of millions of steps.
+     * <p>
+     * The price at node i of row t is exp(ln S0 + t ln d + i ln(u / d)), evaluated exactly (one multiplication
+     * per term, no accumulated sums) at every {@value #ANCHOR_NODES}th node and carried to the nodes in between
+     * by multiplying by u / d, so there is no {@code Math.pow} in the hot loop and the relative error of any
+     * node price stays within a few hundred rounding errors. Nodes whose price lies beyond 1e300 or below 1e-300
+     * are held at those limits (zero for the latter): their probability is far too small to affect the price,
+     * and holding them keeps every value finite where the direct engines produce Infinity, zero or NaN. Memory
+     * is one row of n + 1 values. Barrier contracts are not supported.
+     */
+    @Override
+    public double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Log-space lattices do not support barrier options");
+        }
+        int steps = model.getSteps();
+        double upOverDown = model.getUpFactor() / model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+
+        double[] optionValues = workspace.values(steps + 1);
+
+        // Terminal payoffs, anchored like the American rows below.
+        for (int from = 0; from <= steps; from += ANCHOR_NODES) {
+            int to = Math.min(steps, from + ANCHOR_NODES - 1);
+            double stockPrice = anchorPrice(model, steps, from);
+            for (int i = from; i <= to; i++) {
+                optionValues[i] = contract.payoff(clamp(stockPrice));
+                stockPrice *= upOverDown;
+            }
+        }
+
+        for (int step = steps - 1; step >= 0; step--) {
+            if (!contract.isAmerican()) {
+                BinomialEngine.backwardRow(optionValues, 0, step, q, discount);
+                continue;
+            }
+            for (int from = 0; from <= step; from += ANCHOR_NODES) {
+                int to = Math.min(step, from + ANCHOR_NODES - 1);
+                if (model.logNodePrice(step, from) >= LOG_MIN_NODE_PRICE
+                        && model.logNodePrice(step, to) <= LOG_MAX_NODE_PRICE) {
+                    BinomialEngine.backwardRowAmerican(optionValues, from, to, q, discount, contract,
+                            anchorPrice(model, step, from), upOverDown);
+                } else {
+                    // A piece reaching past either limit: clamp every node.
+                    for (int i = from; i <= to; i++) {
+                        BinomialEngine.backwardRowAmerican(optionValues, i, i, q, discount, contract,
+                                clamp(model.nodePrice(step, i)), 1);
+                    }
+                }
+            }
+        }
+
+        workspace.setNodesEvaluated((long) steps * (steps + 1) / 2);
+        return optionValues[0];
+    }
+
+    /**
+     * @return True if S0 u^n or S0 d^n, as computed by the direct engines, may leave the double range or lose
+     * precision as a subnormal, so the model should be priced in log space.
+     */
+    static boolean needsLogSpace(LatticeModel model) {
+        double largestLog = Math.max(Math.abs(Math.log(model.getUpFactor())), Math.abs(Math.log(model.getDownFactor())));
+        return model.getSteps() * largestLog + Math.abs(Math.log(model.getInitialPrice())) > DIRECT_POWER_LIMIT;
+    }
+
+    private static double anchorPrice(LatticeModel model, int step, int index) {
+        return Math.exp(Math.min(model.logNodePrice(step, index), LOG_MAX_NODE_PRICE));
+    }
+
+    private static double clamp(double stockPrice) {
+        return stockPrice < MIN_NODE_PRICE ? 0 : Math.min(stockPrice, LatticeModel.MAX_NODE_PRICE);
+    }
+}
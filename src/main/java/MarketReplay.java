@@ -0,0 +1,454 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class MarketReplay {
+    private static final String FILE_HEADER = "OffsetMicros,Underlying,Field,Value";
+    private static final double VOLATILITY = 0.2;
+    private static final double MATURITY = 0.5;
+    private static final double INITIAL_RATE = 0.05;
+
+    /**
+     * Replays a recorded tick file against a book of options and reprices, for every tick, only the contracts
+     * written on the ticked underlying.
+     * <p>
+     * Tick files are CSV with the header {@value #FILE_HEADER}; field is SPOT or RATE, the latter being the
+     * continuously compounded rate of the underlying's currency. The book holds, per underlying, a ladder of
+     * American calls and puts struck from 80% to 120% of its first spot, priced on a Cox-Ross-Rubinstein lattice.
+     * <p>
+     * Ticks are published at their recorded offsets (scaled by the replay speed) into a bounded queue that
+     * conflates by underlying: a tick for an underlying that is already waiting merges into the waiting update,
+     * so a slow pricer skips to the latest state instead of falling ever further behind, and the publisher only
+     * blocks when the configured number of distinct underlyings is waiting. An underlying is never repriced by
+     * two threads at once. Tick-to-price latency runs from the time the oldest tick merged into an update was due,
+     * at its recorded offset, to the moment all of the underlying's contracts are repriced; ticks held up by a
+     * blocked publisher count the time they waited to be published. At speed 0 there is no schedule and a tick
+     * is due when it is published.
+     * <p>
+     * Arguments are {@code key=value} pairs:
+     * <ul>
+     *     <li>{@code file} - tick file to replay, or to write when {@code generate=true};</li>
+     *     <li>{@code generate} - write a synthetic random-walk tick file instead of replaying (default false);</li>
+     *     <li>{@code underlyings}, {@code ticks}, {@code tickRate} - size and recorded rate (per second) of a
+     *     generated file (defaults 50, 200000, 20000);</li>
+     *     <li>{@code contracts} - contracts per underlying (default 20);</li>
+     *     <li>{@code steps} - lattice steps (default 200);</li>
+     *     <li>{@code threads} - repricing threads (default: available processors);</li>
+     *     <li>{@code capacity} - distinct underlyings that may wait in the queue (default 1024);</li>
+     *     <li>{@code speed} - replay speed multiplier, 0 for as fast as possible (default 1).</li>
+     * </ul>
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String file = null;
+        boolean generate = false;
+        int underlyings = 50;
+        int tickCount = 200_000;
+        double tickRate = 20_000;
+        int contractsPerUnderlying = 20;
+        int steps = 200;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int capacity = 1024;
+        double speed = 1;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Arguments must be key=value pairs: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            switch (key) {
+                case "file":
+                    file = value;
+                    break;
+                case "generate":
+                    generate = Boolean.parseBoolean(value);
+                    break;
+                case "underlyings":
+                    underlyings = Integer.parseInt(value);
+                    break;
+                case "ticks":
+                    tickCount = Integer.parseInt(value);
+                    break;
+                case "tickRate":
+                    tickRate = Double.parseDouble(value);
+                    break;
+                case "contracts":
+                    contractsPerUnderlying = Integer.parseInt(value);
+                    break;
+                case "steps":
+                    steps = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "capacity":
+                    capacity = Integer.parseInt(value);
+                    break;
+                case "speed":
+                    speed = Double.parseDouble(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + key);
+            }
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("A tick file is required: file=<path>");
+        }
+        if (generate) {
+            generateTicks(file, underlyings, tickCount, tickRate);
+            return;
+        }
+        if (contractsPerUnderlying < 2 || steps <= 0 || threads <= 0 || capacity <= 0 || speed < 0) {
+            throw new IllegalArgumentException("Contracts must be at least 2; steps, threads and capacity positive");
+        }
+
+        MarketReplay replay = new MarketReplay(readTicks(file), contractsPerUnderlying, steps);
+        replay.run(threads, capacity, speed);
+    }
+
+    // Recorded ticks.
+    private final long[] offsetsNanos;
+    private final int[] tickUnderlyings;
+    private final boolean[] isRate;
+    private final double[] tickValues;
+
+    // Market state and book; each underlying's entries are only touched by the thread repricing it.
+    private final String[] underlyingNames;
+    private final double[] spots;
+    private final double[] rates;
+    private final int[][] dependents;
+    private final double[] strikePrices;
+    private final boolean[] isCall;
+    private final double[] prices;
+    private final int steps;
+
+    private MarketReplay(List<String[]> ticks, int contractsPerUnderlying, int steps) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        List<Double> firstSpots = new ArrayList<>();
+        offsetsNanos = new long[ticks.size()];
+        tickUnderlyings = new int[ticks.size()];
+        isRate = new boolean[ticks.size()];
+        tickValues = new double[ticks.size()];
+        for (int i = 0; i < ticks.size(); i++) {
+            String[] tick = ticks.get(i);
+            offsetsNanos[i] = Long.parseLong(tick[0]) * 1000;
+            isRate[i] = tick[2].equals("RATE");
+            if (!isRate[i] && !tick[2].equals("SPOT")) {
+                throw new IllegalArgumentException("Unknown tick field: " + tick[2]);
+            }
+            tickValues[i] = Double.parseDouble(tick[3]);
+            Integer id = ids.get(tick[1]);
+            if (id == null) {
+                if (isRate[i]) {
+                    throw new IllegalArgumentException("Rate tick before the first spot of " + tick[1]);
+                }
+                id = ids.size();
+                ids.put(tick[1], id);
+                firstSpots.add(tickValues[i]);
+            }
+            tickUnderlyings[i] = id;
+        }
+
+        int underlyings = ids.size();
+        underlyingNames = ids.keySet().toArray(new String[0]);
+        spots = new double[underlyings];
+        rates = new double[underlyings];
+        dependents = new int[underlyings][contractsPerUnderlying];
+        strikePrices = new double[underlyings * contractsPerUnderlying];
+        isCall = new boolean[underlyings * contractsPerUnderlying];
+        prices = new double[underlyings * contractsPerUnderlying];
+        for (int u = 0; u < underlyings; u++) {
+            spots[u] = firstSpots.get(u);
+            rates[u] = INITIAL_RATE;
+            for (int k = 0; k < contractsPerUnderlying; k++) {
+                int contract = u * contractsPerUnderlying + k;
+                dependents[u][k] = contract;
+                strikePrices[contract] = spots[u] * (0.8 + 0.4 * k / (contractsPerUnderlying - 1));
+                isCall[contract] = k % 2 == 0;
+            }
+        }
+        this.steps = steps;
+    }
+
+    private void run(int threads, int capacity, double speed) throws InterruptedException {
+        ConflatingQueue queue = new ConflatingQueue(capacity);
+        LatencyHistogram[] latencies = new LatencyHistogram[threads];
+        long[] repriced = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            latencies[t] = new LatencyHistogram();
+            workers[t] = new Thread(() -> repriceLoop(queue, latencies[worker], repriced, worker),
+                    "replay-" + t);
+            workers[t].start();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < offsetsNanos.length; i++) {
+            long due;
+            if (speed > 0) {
+                due = start + (long) (offsetsNanos[i] / speed);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                due = System.nanoTime();
+            }
+            queue.publish(tickUnderlyings[i], isRate[i], tickValues[i], due);
+        }
+        long published = System.nanoTime();
+        queue.close();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long end = System.nanoTime();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long contracts = 0;
+        for (int t = 0; t < threads; t++) {
+            latency.add(latencies[t]);
+            contracts += repriced[t];
+        }
+        double seconds = (end - start) / 1e9;
+        System.out.println("Ticks,Underlyings,Contracts,ElapsedS,PublishS,TicksPerS,Updates,Conflated,"
+                + "PublisherBlockedMs,Reprices,RepricesPerS,P50Us,P99Us,P999Us,MaxUs");
+        System.out.printf(Locale.ROOT, "%d,%d,%d,%.3f,%.3f,%.1f,%d,%d,%.1f,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+                offsetsNanos.length, underlyingNames.length, prices.length, seconds, (published - start) / 1e9,
+                offsetsNanos.length / seconds, latency.getTotalCount(), queue.getConflated(),
+                queue.getBlockedNanos() / 1e6, contracts, contracts / seconds,
+                latency.valueAtQuantile(0.5) / 1e3, latency.valueAtQuantile(0.99) / 1e3,
+                latency.valueAtQuantile(0.999) / 1e3, latency.getMaxValue() / 1e3);
+    }
+
+    private void repriceLoop(ConflatingQueue queue, LatencyHistogram latency, long[] repriced, int worker) {
+        PricingEngine engine = new BinomialEngine();
+        PricingWorkspace workspace = new PricingWorkspace();
+        long count = 0;
+        Update update;
+        while ((update = queue.take()) != null) {
+            int underlying = update.underlying;
+            if (!Double.isNaN(update.spot)) {
+                spots[underlying] = update.spot;
+            }
+            if (!Double.isNaN(update.rate)) {
+                rates[underlying] = update.rate;
+            }
+            for (int contract : dependents[underlying]) {
+                LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN,
+                        spots[underlying], strikePrices[contract], rates[underlying], VOLATILITY, MATURITY, steps)
+                        .toModel(spots[underlying]);
+                prices[contract] = engine.price(new OptionContract(strikePrices[contract], isCall[contract], true),
+                        model, workspace);
+            }
+            count += dependents[underlying].length;
+            latency.record(System.nanoTime() - update.firstDue);
+            queue.done(underlying);
+        }
+        synchronized (repriced) {
+            repriced[worker] = count;
+        }
+    }
+
+    private static List<String[]> readTicks(String file) throws IOException {
+        List<String[]> ticks = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine();
+            if (!FILE_HEADER.equals(line)) {
+                throw new IOException("Not a tick file (expected header " + FILE_HEADER + "): " + file);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    String[] fields = line.split(",");
+                    if (fields.length != 4) {
+                        throw new IOException("Malformed tick: " + line);
+                    }
+                    ticks.add(fields);
+                }
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * Writes a synthetic tick file: Poisson arrivals at {@code tickRate} per second, activity skewed towards the
+     * first underlyings, spots following small log-normal steps and one tick in a hundred moving a rate by 1bp.
+     */
+    private static void generateTicks(String file, int underlyings, int tickCount, double tickRate)
+            throws IOException {
+        Random random = new Random(7);
+        double[] spots = new double[underlyings];
+        double[] rates = new double[underlyings];
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write(FILE_HEADER);
+            writer.newLine();
+            for (int u = 0; u < underlyings; u++) {
+                spots[u] = 50 + 100.0 * u / underlyings;
+                rates[u] = INITIAL_RATE;
+                writer.write("0,U" + u + ",SPOT," + spots[u]);
+                writer.newLine();
+            }
+            double offsetMicros = 0;
+            for (int i = 0; i < tickCount; i++) {
+                offsetMicros += -Math.log(1 - random.nextDouble()) * 1e6 / tickRate;
+                double skew = random.nextDouble();
+                int u = (int) (underlyings * skew * skew);
+                String field;
+                double value;
+                if (random.nextInt(100) == 0) {
+                    rates[u] += random.nextBoolean() ? 1e-4 : -1e-4;
+                    field = "RATE";
+                    value = rates[u];
+                } else {
+                    spots[u] *= Math.exp(5e-4 * random.nextGaussian());
+                    field = "SPOT";
+                    value = spots[u];
+                }
+                writer.write((long) offsetMicros + ",U" + u + "," + field + "," + value);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Market change waiting to be priced: the latest spot and rate of an underlying (NaN if unchanged) and when
+     * the oldest tick merged into it was due.
+     */
+    private static final class Update {
+        private final int underlying;
+        private final long firstDue;
+        private double spot = Double.NaN;
+        private double rate = Double.NaN;
+
+        private Update(int underlying, long firstDue) {
+            this.underlying = underlying;
+            this.firstDue = firstDue;
+        }
+    }
+
+    /**
+     * Queue of updates holding at most one per underlying, bounded by the number of underlyings waiting.
+     * Underlyings being repriced are not handed out again until {@link #done(int)}, so updates of one
+     * underlying are applied in order.
+     */
+    private static final class ConflatingQueue {
+        private final int capacity;
+        private final LinkedHashMap<Integer, Update> waiting = new LinkedHashMap<>();
+        private final Set<Integer> inFlight = new HashSet<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private boolean closed;
+        private long conflated;
+        private long blockedNanos;
+
+        private ConflatingQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void publish(int underlying, boolean isRate, double value, long due) throws InterruptedException {
+            lock.lock();
+            try {
+                Update update = waiting.get(underlying);
+                if (update == null) {
+                    if (waiting.size() >= capacity) {
+                        long blockedSince = System.nanoTime();
+                        while (waiting.size() >= capacity) {
+                            changed.await();
+                        }
+                        blockedNanos += System.nanoTime() - blockedSince;
+                    }
+                    update = new Update(underlying, due);
+                    waiting.put(underlying, update);
+                    changed.signalAll();
+                } else {
+                    conflated++;
+                }
+                if (isRate) {
+                    update.rate = value;
+                } else {
+                    update.spot = value;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return The oldest waiting update of an underlying not being repriced, or null once the queue is closed
+         * and drained.
+         */
+        private Update take() {
+            lock.lock();
+            try {
+                while (true) {
+                    for (Iterator<Update> it = waiting.values().iterator(); it.hasNext(); ) {
+                        Update update = it.next();
+                        if (inFlight.add(update.underlying)) {
+                            it.remove();
+                            changed.signalAll();
+                            return update;
+                        }
+                    }
+                    if (closed && waiting.isEmpty()) {
+                        return null;
+                    }
+                    changed.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void done(int underlying) {
+            lock.lock();
+            try {
+                inFlight.remove(underlying);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                closed = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long getConflated() {
+            lock.lock();
+            try {
+                return conflated;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long getBlockedNanos() {
+            lock.lock();
+            try {
+                return blockedNanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+public class MonteCarloPricer {
+
+    /**
+     * Stochastic process used to generate the paths.
+     */
+    public enum Dynamics {
+        /** The same u/d random walk as the binomial lattice, moving up with the risk-neutral probability. */
+        BINOMIAL,
+        /**
+         * Geometric Brownian motion with the lattice's per-step log variance q (1 - q) ln(u / d)^2 and growth 1 + r.
+         */
+        GEOMETRIC_BROWNIAN
+    }
+
+    /**
+     * Payoff evaluated on each simulated path.
+     */
+    public enum Payoff {
+        /** Vanilla payoff on the price at maturity. */
+        EUROPEAN,
+        /** Fixed-strike payoff on the arithmetic average of the prices at steps 1..n. */
+        ARITHMETIC_AVERAGE
+    }
+
+    // Antithetic pairs per independent random stream. Fixing the chunk size (rather than deriving it from the
+    // number of cores) keeps the result identical whatever the degree of parallelism.
+    private static final int PAIRS_PER_CHUNK = 4096;
+    // Pairs advanced together through the time steps; path state lives in primitive arrays of this length.
+    private static final int BLOCK_SIZE = 256;
+    // Per-chunk accumulators: sum Y, sum X, sum Y^2, sum X^2, sum XY.
+    private static final int STATISTICS = 5;
+
+    private final double optionPrice;
+    private final double standardError;
+    private final double controlCoefficient;
+    private final long pathsSimulated;
+
+    /**
+     * Prices an option by simulating paths of the binomial model in parallel.
+     * <p>
+     * Paths are generated in antithetic pairs and split into fixed-size chunks, each driven by its own
+     * {@link SplittableRandom} stream split from the seed, so the same seed always gives the same price.
+     * For the average payoff, the discounted European payoff on the same path is used as a control variate:
+     * under binomial dynamics its expectation is the closed-form lattice price, under the Brownian limit it is the
+     * Black-Scholes price. For the European payoff that control would be the target itself and the estimate would
+     * collapse to the closed-form price, so the discounted terminal price, whose expectation is the initial
+     * price under both dynamics, is used instead and the simulation stays an independent check of the lattice.
+     *
+     * @param initialPrice  Initial asset price.
+     * @param strikePrice   Strike price of the option.
+     * @param probabilityUp The probability of the asset's value increasing in a single step.
+     * @param upFactor      Upward movement factor.
+     * @param downFactor    Downward movement factor.
+     * @param interestRate  Risk-free interest rate per period (e.g., 0.05 for 5%).
+     * @param isCall        True for Call option, False for Put option.
+     * @param steps         Number of steps per path.
+     * @param payoff        Payoff evaluated on each path.
+     * @param dynamics      Process used to generate the paths.
+     * @param paths         Number of simulated paths (rounded up to a whole number of antithetic pairs).
+     * @param seed          Seed of the root random stream.
+     */
+    public MonteCarloPricer(double initialPrice, double strikePrice, double probabilityUp,
+                            double upFactor, double downFactor, double interestRate,
+                            boolean isCall, int steps, Payoff payoff, Dynamics dynamics,
+                            long paths, long seed) {
+        // Validate inputs.
+        LatticeModel.checkProbability(probabilityUp);
+        LatticeModel model = new LatticeModel(initialPrice, upFactor, downFactor, interestRate, steps);
+        if (paths <= 0) {
+            throw new IllegalArgumentException("Paths must be greater than zero");
+        }
+        double q = model.getRiskNeutralProbability();
+
+        long pairs = (paths + 1) / 2;
+        int chunks = (int) ((pairs + PAIRS_PER_CHUNK - 1) / PAIRS_PER_CHUNK);
+
+        // Split the streams sequentially so that chunk c always receives the same stream.
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            streams[c] = root.split();
+        }
+
+        double discount = Math.pow(1 + interestRate, -steps);
+        double[] statistics = new double[chunks * STATISTICS];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int chunkPairs = (int) Math.min(PAIRS_PER_CHUNK, pairs - (long) c * PAIRS_PER_CHUNK);
+            simulateChunk(streams[c], chunkPairs, statistics, c * STATISTICS, initialPrice, strikePrice,
+                    upFactor, downFactor, interestRate, q, discount, isCall, steps, payoff, dynamics);
+        });
+
+        // Reduce in chunk order so the floating-point sums do not depend on thread scheduling.
+        double sumY = 0, sumX = 0, sumYY = 0, sumXX = 0, sumXY = 0;
+        for (int c = 0; c < chunks; c++) {
+            int offset = c * STATISTICS;
+            sumY += statistics[offset];
+            sumX += statistics[offset + 1];
+            sumYY += statistics[offset + 2];
+            sumXX += statistics[offset + 3];
+            sumXY += statistics[offset + 4];
+        }
+
+        double meanY = sumY / pairs;
+        double meanX = sumX / pairs;
+        double varianceY = sumYY / pairs - meanY * meanY;
+        double varianceX = sumXX / pairs - meanX * meanX;
+        double covariance = sumXY / pairs - meanX * meanY;
+
+        double controlMean;
+        if (payoff == Payoff.EUROPEAN) {
+            // Both dynamics grow by 1 + r per step in expectation, so the discounted terminal price is a martingale.
+            controlMean = initialPrice;
+        } else if (dynamics == Dynamics.BINOMIAL) {
+            controlMean = binomialClosedFormPrice(initialPrice, strikePrice, upFactor, downFactor, q, discount,
+                    isCall, steps);
+        } else {
+            // One step is one unit of time: per-step volatility v and continuous rate ln(1 + r).
+            double volatility = stepVolatility(upFactor, downFactor, q);
+            controlMean = new BlackScholesModel(initialPrice, strikePrice, Math.log(1 + interestRate),
+                    volatility, steps, isCall).getOptionPrice();
+        }
+
+        controlCoefficient = varianceX > 0 ? covariance / varianceX : 0;
+        optionPrice = meanY - controlCoefficient * (meanX - controlMean);
+
+        double residualVariance = Math.max(varianceY - controlCoefficient * covariance, 0);
+        standardError = pairs > 1 ? Math.sqrt(residualVariance / (pairs - 1)) : Double.NaN;
+        pathsSimulated = 2 * pairs;
+    }
+
+    /**
+     * Simulates one chunk of antithetic pairs and writes its sums into {@code statistics}.
+     */
+    private static void simulateChunk(SplittableRandom random, int pairs, double[] statistics, int offset,
+                                      double initialPrice, double strikePrice, double upFactor, double downFactor,
+                                      double interestRate, double q, double discount, boolean isCall, int steps,
+                                      Payoff payoff, Dynamics dynamics) {
+        double[] spot = new double[BLOCK_SIZE];
+        double[] antitheticSpot = new double[BLOCK_SIZE];
+        double[] runningSum = new double[BLOCK_SIZE];
+        double[] antitheticSum = new double[BLOCK_SIZE];
+
+        // Brownian limit: same per-step log variance as the lattice and expected growth 1 + r.
+        double volatility = stepVolatility(upFactor, downFactor, q);
+        double drift = Math.log(1 + interestRate) - volatility * volatility / 2;
+        boolean isAverage = payoff == Payoff.ARITHMETIC_AVERAGE;
+
+        double sumY = 0, sumX = 0, sumYY = 0, sumXX = 0, sumXY = 0;
+        for (int start = 0; start < pairs; start += BLOCK_SIZE) {
+            int block = Math.min(BLOCK_SIZE, pairs - start);
+            for (int p = 0; p < block; p++) {
+                spot[p] = initialPrice;
+                antitheticSpot[p] = initialPrice;
+                runningSum[p] = 0;
+                antitheticSum[p] = 0;
+            }
+
+            for (int step = 0; step < steps; step++) {
+                if (dynamics == Dynamics.BINOMIAL) {
+                    for (int p = 0; p < block; p++) {
+                        double uniform = random.nextDouble();
+                        spot[p] *= uniform < q ? upFactor : downFactor;
+                        antitheticSpot[p] *= 1 - uniform < q ? upFactor : downFactor;
+                    }
+                } else {
+                    for (int p = 0; p < block; p++) {
+                        double shock = volatility * random.nextGaussian();
+                        spot[p] *= Math.exp(drift + shock);
+                        antitheticSpot[p] *= Math.exp(drift - shock);
+                    }
+                }
+                if (isAverage) {
+                    for (int p = 0; p < block; p++) {
+                        runningSum[p] += spot[p];
+                        antitheticSum[p] += antitheticSpot[p];
+                    }
+                }
+            }
+
+            for (int p = 0; p < block; p++) {
+                double underlying = isAverage ? runningSum[p] / steps : spot[p];
+                double antitheticUnderlying = isAverage ? antitheticSum[p] / steps : antitheticSpot[p];
+                double y = discount * (payoff(underlying, strikePrice, isCall)
+                        + payoff(antitheticUnderlying, strikePrice, isCall)) / 2;
+                double x = isAverage
+                        ? discount * (payoff(spot[p], strikePrice, isCall)
+                        + payoff(antitheticSpot[p], strikePrice, isCall)) / 2
+                        : discount * (spot[p] + antitheticSpot[p]) / 2;
+                sumY += y;
+                sumX += x;
+                sumYY += y * y;
+                sumXX += x * x;
+                sumXY += x * y;
+            }
+        }
+
+        statistics[offset] = sumY;
+        statistics[offset + 1] = sumX;
+        statistics[offset + 2] = sumYY;
+        statistics[offset + 3] = sumXX;
+        statistics[offset + 4] = sumXY;
+    }
+
+    /**
+     * @return The standard deviation of the log price over one lattice step, sqrt(q (1 - q)) ln(u / d); it is
+     * ln(u / d) / 2 only when q = 1/2.
+     */
+    private static double stepVolatility(double upFactor, double downFactor, double q) {
+        return Math.sqrt(q * (1 - q)) * Math.log(upFactor / downFactor);
+    }
+
+    private static double payoff(double underlying, double strikePrice, boolean isCall) {
+        return isCall ? Math.max(underlying - strikePrice, 0) : Math.max(strikePrice - underlying, 0);
+    }
+
+    /**
+     * Computes the European lattice price in closed form by summing the terminal payoffs
+     * against their binomial probabilities. Weights are built in log space to avoid overflow.
+     */
+    static double binomialClosedFormPrice(double initialPrice, double strikePrice, double upFactor,
+                                          double downFactor, double q, double discount, boolean isCall, int steps) {
+        double logUp = Math.log(upFactor);
+        double logDown = Math.log(downFactor);
+        double logQ = Math.log(q);
+        double logOneMinusQ = Math.log(1 - q);
+        double logInitialPrice = Math.log(initialPrice);
+
+        double logBinomial = 0; // log C(steps, k)
+        double expectedPayoff = 0;
+        for (int k = 0; k <= steps; k++) {
+            if (k > 0) {
+                logBinomial += Math.log(steps - k + 1) - Math.log(k);
+            }
+            double weight = Math.exp(logBinomial + k * logQ + (steps - k) * logOneMinusQ);
+            double stockPrice = Math.exp(logInitialPrice + k * logUp + (steps - k) * logDown);
+            expectedPayoff += weight * payoff(stockPrice, strikePrice, isCall);
+        }
+        return discount * expectedPayoff;
+    }
+
+    public double getOptionPrice() {
+        return optionPrice;
+    }
+
+    public double getStandardError() {
+        return standardError;
+    }
+
+    public double getControlCoefficient() {
+        return controlCoefficient;
+    }
+
+    public long getPathsSimulated() {
+        return pathsSimulated;
+    }
+}
@@ -0,0 +1,109 @@
+public class OptionContract {
+
+    /**
+     * Barrier feature of the contract. Barriers are monitored at every lattice step.
+     */
+    public enum BarrierType {
+        NONE,
+        /** Worthless once the stock price reaches the barrier from below. */
+        UP_AND_OUT,
+        /** Worthless once the stock price reaches the barrier from above. */
+        DOWN_AND_OUT,
+        /** Becomes a vanilla option once the stock price reaches the barrier from below. */
+        UP_AND_IN,
+        /** Becomes a vanilla option once the stock price reaches the barrier from above. */
+        DOWN_AND_IN;
+
+        public boolean isUp() {
+            return this == UP_AND_OUT || this == UP_AND_IN;
+        }
+
+        public boolean isKnockIn() {
+            return this == UP_AND_IN || this == DOWN_AND_IN;
+        }
+
+        /**
+         * @return The knock-out barrier with the same direction, used to price knock-ins by in-out parity.
+         */
+        public BarrierType knockOut() {
+            return isUp() ? UP_AND_OUT : DOWN_AND_OUT;
+        }
+    }
+
+    private final double strikePrice;
+    private final boolean isCall;
+    private final boolean isAmerican;
+    private final BarrierType barrierType;
+    private final double barrierLevel;
+
+    /**
+     * Immutable description of what is being priced, independent of the model used to price it.
+     *
+     * @param strikePrice Strike price of the option.
+     * @param isCall      True for Call option, False for Put option.
+     * @param isAmerican  True if the option may be exercised at any node, False for European exercise.
+     */
+    public OptionContract(double strikePrice, boolean isCall, boolean isAmerican) {
+        this(strikePrice, isCall, isAmerican, BarrierType.NONE, 0);
+    }
+
+    /**
+     * Describes a barrier option. Knock-in options are priced by in-out parity, which only holds
+     * for European exercise.
+     *
+     * @param strikePrice  Strike price of the option.
+     * @param isCall       True for Call option, False for Put option.
+     * @param isAmerican   True if the option may be exercised at any node, False for European exercise.
+     * @param barrierType  Barrier feature of the contract.
+     * @param barrierLevel Stock price at which the barrier is triggered.
+     */
+    public OptionContract(double strikePrice, boolean isCall, boolean isAmerican,
+                          BarrierType barrierType, double barrierLevel) {
+        if (barrierType != BarrierType.NONE && barrierLevel <= 0) {
+            throw new IllegalArgumentException("Barrier level must be positive");
+        }
+        if (barrierType.isKnockIn() && isAmerican) {
+            throw new IllegalArgumentException("Knock-in barriers are only supported for European exercise");
+        }
+        this.strikePrice = strikePrice;
+        this.isCall = isCall;
+        this.isAmerican = isAmerican;
+        this.barrierType = barrierType;
+        this.barrierLevel = barrierLevel;
+    }
+
+    /**
+     * Computes the exercise value of the option for a given stock price, ignoring any barrier.
+     */
+    public double payoff(double stockPrice) {
+        return isCall ? Math.max(stockPrice - strikePrice, 0) : Math.max(strikePrice - stockPrice, 0);
+    }
+
+    /**
+     * @return The same contract with the barrier replaced.
+     */
+    public OptionContract withBarrier(BarrierType barrierType, double barrierLevel) {
+        return new OptionContract(strikePrice, isCall, isAmerican, barrierType, barrierLevel);
+    }
+
+    // Getter methods
+    public double getStrikePrice() {
+        return strikePrice;
+    }
+
+    public boolean isCall() {
+        return isCall;
+    }
+
+    public boolean isAmerican() {
+        return isAmerican;
+    }
+
+    public BarrierType getBarrierType() {
+        return barrierType;
+    }
+
+    public double getBarrierLevel() {
+        return barrierLevel;
+    }
+}
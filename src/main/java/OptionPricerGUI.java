@@ -18,6 +18,8 @@ public class OptionPricerGUI extends JFrame {
     private static final double DEFAULT_DOWN_FACTOR = 0.9;
     private static final double DEFAULT_INTEREST_RATE = 0.05;
     private static final int DEFAULT_STEPS = 3;
+    private static final String BINOMIAL_LATTICE = "Binomial";
+    private static final String TRINOMIAL_LATTICE = "Trinomial";
 
     // Existing components
     private final JSlider initialPriceSlider;
@@ -43,6 +45,8 @@ public class OptionPricerGUI extends JFrame {
 
     private final JCheckBox callOptionCheckBox;
 
+    private final JComboBox<String> latticeComboBox;
+
     private final DiagramWindow diagramWindow;
     private final String filePath = "src/main/resources/EvolutionOfOptionPrice.csv";
 
@@ -56,6 +60,10 @@ public class OptionPricerGUI extends JFrame {
     private double[][] optionValues;
     private double[][] stockPrices;
 
+    // Reused while only the strike or the option type changes.
+    private StockLattice stockLattice;
+    private DiscountingContext discounting;
+
     // New components for running Python script
     private final JButton runPythonButton;
     private final JTextArea pythonOutputArea;
@@ -73,7 +81,7 @@ public class OptionPricerGUI extends JFrame {
 
         // Initialize panels
         JPanel inputPanel = new JPanel();
-        inputPanel.setLayout(new GridLayout(8, 3, 10, 10));
+        inputPanel.setLayout(new GridLayout(9, 3, 10, 10));
         inputPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         // Initialize components
@@ -136,6 +144,13 @@ public class OptionPricerGUI extends JFrame {
         inputPanel.add(callOptionCheckBox);
         inputPanel.add(new JLabel(""));
 
+        // Lattice used by the CSV sweep and the benchmark
+        latticeComboBox = new JComboBox<>(new String[]{BINOMIAL_LATTICE, TRINOMIAL_LATTICE});
+        latticeComboBox.setToolTipText("Lattice used by the step sweep and the 10s benchmark.");
+        inputPanel.add(new JLabel("Sweep Lattice:"));
+        inputPanel.add(latticeComboBox);
+        inputPanel.add(new JLabel(""));
+
         // Add input panel to the frame
         add(inputPanel, BorderLayout.CENTER);
 
@@ -176,7 +191,8 @@ public class OptionPricerGUI extends JFrame {
                         upFactorSlider.getValue() / 100.0,
                         downFactorSlider.getValue() / 100.0,
                         interestRateSlider.getValue() / 100.0,
-                        callOptionCheckBox.isSelected()
+                        callOptionCheckBox.isSelected(),
+                        (String) latticeComboBox.getSelectedItem()
                 );
             }
         });
@@ -409,7 +425,8 @@ public class OptionPricerGUI extends JFrame {
                                 upFactorSlider.getValue() / 100.0,
                                 downFactorSlider.getValue() / 100.0,
                                 interestRateSlider.getValue() / 100.0,
-                                callOptionCheckBox.isSelected()
+                                callOptionCheckBox.isSelected(),
+                                (String) latticeComboBox.getSelectedItem()
                         );
 
 
@@ -498,8 +515,12 @@ public class OptionPricerGUI extends JFrame {
 
             SimpleBinomialTree binomialTree = new SimpleBinomialTree(initialPrice, strikePrice, probabilityUp,
                     upFactor, downFactor, interestRate, isCall);
-            MultiStepBinomialTree multiStepBinomialTree = new MultiStepBinomialTree(initialPrice, strikePrice, probabilityUp,
-                    upFactor, downFactor, interestRate, isCall, steps);
+            LatticeModel.checkProbability(probabilityUp);
+            LatticeModel model = new LatticeModel(initialPrice, upFactor, downFactor, interestRate, steps);
+            stockLattice = StockLattice.reuseOrBuild(stockLattice, initialPrice, upFactor, downFactor, steps);
+            discounting = DiscountingContext.reuseOrBuild(discounting, model);
+            MultiStepBinomialTree multiStepBinomialTree = new MultiStepBinomialTree(stockLattice, discounting,
+                    strikePrice, isCall);
 
             optionValues = multiStepBinomialTree.getOptionValues();
             stockPrices = multiStepBinomialTree.getStockPrices();
@@ -522,6 +543,21 @@ public class OptionPricerGUI extends JFrame {
         }
     }
 
+    /**
+     * Prices a European option on the lattice chosen for the sweep and benchmark paths.
+     * The binomial lattice keeps the full tree so its timings match the diagram computation.
+     */
+    private static double priceWithLattice(String lattice, double initialPrice, double strikePrice,
+                                           double probabilityUp, double upFactor, double downFactor,
+                                           double interestRate, boolean isCall, int steps) {
+        if (TRINOMIAL_LATTICE.equals(lattice)) {
+            return new TrinomialTree(initialPrice, strikePrice, probabilityUp, upFactor, downFactor,
+                    interestRate, isCall, steps).getOptionPrice();
+        }
+        return new MultiStepBinomialTree(initialPrice, strikePrice, probabilityUp, upFactor, downFactor,
+                interestRate, isCall, steps).getOptionPrice();
+    }
+
     private void runPythonScript(double computationTime) {
         // Disable the button to prevent multiple clicks
         runPythonButton.setEnabled(false);
@@ -596,7 +632,7 @@ public class OptionPricerGUI extends JFrame {
 
     private void generateCsvInBackground(int numberStepsGraph, double initialPrice, double strikePrice,
                                          double probabilityUp, double upFactor, double downFactor,
-                                         double interestRate, boolean isCall) {
+                                         double interestRate, boolean isCall, String lattice) {
 
         runPythonButton.setEnabled(false);
 
@@ -607,7 +643,7 @@ public class OptionPricerGUI extends JFrame {
 
             @Override
             protected Void doInBackground() throws Exception {
-                LOGGER.log(Level.INFO, "number of steps graph: " + numberStepsGraph);
+                LOGGER.log(Level.INFO, "number of steps graph: " + numberStepsGraph + " (" + lattice + " lattice)");
 
                 try (FileWriter writer = new FileWriter(filePath)) {
                     writer.append("Step,OptionPrice,ComputationTime\n");
@@ -617,12 +653,10 @@ public class OptionPricerGUI extends JFrame {
 
                         long stepStartTime = System.nanoTime();
 
-                        MultiStepBinomialTree largeBinomialTree = new MultiStepBinomialTree(
+                        double stepOptionPrice = priceWithLattice(lattice,
                                 initialPrice, strikePrice, probabilityUp, upFactor, downFactor,
                                 interestRate, isCall, i);
 
-                        double stepOptionPrice = largeBinomialTree.getOptionPrice();
-
                         long stepEndTime = System.nanoTime();
                         double computationTime = (stepEndTime - stepStartTime) / 1_000_000.0;
 
@@ -694,10 +728,10 @@ public class OptionPricerGUI extends JFrame {
 
     private void benchmarkFor10Seconds(double initialPrice, double strikePrice,
                                        double probabilityUp, double upFactor, double downFactor,
-                                       double interestRate, boolean isCall) {
+                                       double interestRate, boolean isCall, String lattice) {
 
         runPythonButton.setEnabled(false);
-        pythonOutputArea.setText("Starting benchmark for 10 seconds...\n");
+        pythonOutputArea.setText("Starting " + lattice + " benchmark for 10 seconds...\n");
 
         SwingWorker<Void, Integer> worker = new SwingWorker<Void, Integer>() {
             private long maxUsedMemory = 0;
@@ -715,11 +749,9 @@ public class OptionPricerGUI extends JFrame {
                     while (System.currentTimeMillis() < endTime) {
                         long stepStartTime = System.nanoTime();
 
-                        MultiStepBinomialTree binomialTree = new MultiStepBinomialTree(
+                        double optionPrice = priceWithLattice(lattice,
                                 initialPrice, strikePrice, probabilityUp, upFactor,
                                 downFactor, interestRate, isCall, step);
-
-                        double optionPrice = binomialTree.getOptionPrice();
                         long stepEndTime = System.nanoTime();
                         double computationTime = (stepEndTime - stepStartTime) / 1_000_000.0;
 
@@ -743,7 +775,7 @@ public class OptionPricerGUI extends JFrame {
             protected void done() {
                 long maxUsedMemoryMB = maxUsedMemory / (1024 * 1024);
 
-                pythonOutputArea.append("Benchmark completed.\n");
+                pythonOutputArea.append("Benchmark completed (" + lattice + " lattice).\n");
                 pythonOutputArea.append("Total Steps Computed in 10s: " + totalStepsComputed + "\n");
                 pythonOutputArea.append("Max Memory Used: " + maxUsedMemoryMB + " MB\n");
 
@@ -0,0 +1,289 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelBinomialEngine implements PricingEngine {
+    // As in BinomialEngine.
+    private static final double NEGLIGIBLE_VALUE = 1e-250;
+    private static final PricingEngine LOG_SPACE_ENGINE = new LogSpaceBinomialEngine();
+
+    /**
+     * Default width of the chunks the rows are split into: 128 KB of values, kept in cache while a chunk
+     * advances through a block of time steps.
+     */
+    public static final int DEFAULT_CHUNK_NODES = 16384;
+    /**
+     * Default number of time steps per block, i.e. between two synchronisations of the pool.
+     */
+    public static final int DEFAULT_BLOCK_STEPS = 128;
+    /**
+     * Default number of steps below which trees are priced on the calling thread. Below it a row has fewer
+     * than two chunks and the two synchronisations per block cost more than the work they spread.
+     */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 2 * DEFAULT_CHUNK_NODES;
+
+    private final ForkJoinPool pool;
+    private final int chunkNodes;
+    private final int blockSteps;
+    private final int sequentialThreshold;
+    private final PricingEngine sequentialEngine;
+    // Reused by every call; calls on one engine take turns, as each already keeps the whole pool busy.
+    private final Block block = new Block();
+
+    /**
+     * Creates an engine with one pool thread per available processor and the default tile shape and threshold.
+     */
+    public ParallelBinomialEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_NODES, DEFAULT_BLOCK_STEPS,
+                DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * @param threads             Threads of the engine's own pool.
+     * @param chunkNodes          Width of a chunk in nodes; must exceed {@code blockSteps}.
+     * @param blockSteps          Time steps advanced between synchronisations.
+     * @param sequentialThreshold Trees with fewer steps are priced on the calling thread; see
+     *                            {@link #measureThreshold(int)}.
+     */
+    public ParallelBinomialEngine(int threads, int chunkNodes, int blockSteps, int sequentialThreshold) {
+        if (threads <= 0 || blockSteps <= 0 || sequentialThreshold < 0) {
+            throw new IllegalArgumentException("Threads and block depth must be positive");
+        }
+        if (chunkNodes <= blockSteps) {
+            throw new IllegalArgumentException("Chunks must be wider than the block depth");
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.chunkNodes = chunkNodes;
+        this.blockSteps = blockSteps;
+        this.sequentialThreshold = sequentialThreshold;
+        this.sequentialEngine = new TiledBinomialEngine();
+    }
+
+    /**
+     * Backward induction on a recombining binomial tree, with each row split across the engine's pool.
+     * <p>
+     * Rows are processed in blocks of {@code blockSteps} time steps and split into chunks of
+     * {@code chunkNodes} nodes. Node i only depends on nodes i and i + 1 of the row after it, so within a block
+     * a chunk [a, b) can advance t steps over nodes [a, b - t) without reading any other chunk: the chunks
+     * advance as independent trapezoids in parallel, each saving the value at its first node after every step.
+     * The triangle of nodes [a - t, a) each trapezoid leaves behind is then filled in parallel from the
+     * neighbouring chunk's saved values. That is two synchronisations per block instead of one per step, and
+     * every chunk stays in its core's cache for the whole block.
+     * <p>
+     * The chunk layout depends only on the tree, not on the number of threads, so prices are the same for any
+     * pool size. European prices are bit-for-bit those of {@code new BinomialEngine(false)}; American stock
+     * prices are recomputed at chunk starts, which may change the last bits. Trees with fewer than the
+     * threshold's steps go to a {@link TiledBinomialEngine}, and trees too deep for direct powers of u and d to a
+     * {@link LogSpaceBinomialEngine}. Barrier contracts are not supported.
+     * <p>
+     * The saved chunk values live in the workspace's scratch buffer. Concurrent calls on one engine are
+     * serialised, since each already keeps the engine's whole pool busy.
+     */
+    @Override
+    public double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Parallel lattices do not support barrier options");
+        }
+        if (LogSpaceBinomialEngine.needsLogSpace(model)) {
+            return LOG_SPACE_ENGINE.price(contract, model, workspace);
+        }
+        int steps = model.getSteps();
+        if (steps < sequentialThreshold) {
+            return sequentialEngine.price(contract, model, workspace);
+        }
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+
+        double[] optionValues = workspace.values(steps + 1);
+        // Compute terminal payoffs.
+        for (int i = 0; i <= steps; i++) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            optionValues[i] = contract.payoff(stockPrice);
+        }
+
+        int maxChunks = (steps + 1) / chunkNodes + 1;
+        double[] edges = workspace.scratch(maxChunks * blockSteps);
+        synchronized (block) {
+            block.reset(contract, model, optionValues, edges);
+            for (int top = steps; top > 0; top -= blockSteps) {
+                block.top = top;
+                block.depth = Math.min(blockSteps, top);
+                // Fold a last chunk no wider than the block depth into the one before it.
+                block.chunks = Math.max(1, (top + 1) / chunkNodes);
+                block.phase = 0;
+                pool.invoke(new ChunkRange(block, 0, block.chunks));
+                block.phase = 1;
+                pool.invoke(new ChunkRange(block, 1, block.chunks));
+            }
+            // Drop the caller's buffers and contract until the next call.
+            block.reset(null, null, null, null);
+        }
+
+        workspace.setNodesEvaluated((long) steps * (steps + 1) / 2);
+        return optionValues[0];
+    }
+
+    /**
+     * Shuts the engine's pool down; the engine must not be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public int getSequentialThreshold() {
+        return sequentialThreshold;
+    }
+
+    /**
+     * Measures, on this machine, the smallest step count from which a parallel engine with {@code threads}
+     * threads and the default tile shape beats the sequential engine, doubling from two chunks' worth of steps.
+     *
+     * @return The step count to pass as the threshold, or {@link Integer#MAX_VALUE} if the parallel engine never
+     * won up to 65536 steps.
+     */
+    public static int measureThreshold(int threads) {
+        ParallelBinomialEngine parallel = new ParallelBinomialEngine(threads, DEFAULT_CHUNK_NODES,
+                DEFAULT_BLOCK_STEPS, 0);
+        PricingEngine sequential = new TiledBinomialEngine();
+        PricingWorkspace workspace = new PricingWorkspace();
+        OptionContract put = new OptionContract(100, false, false);
+        try {
+            for (int steps = 2 * DEFAULT_CHUNK_NODES; steps <= 65536; steps *= 2) {
+                LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN, 100, 100,
+                        0.05, 0.2, 1, steps).toModel(100);
+                if (medianTime(parallel, put, model, workspace) < medianTime(sequential, put, model, workspace)) {
+                    return steps;
+                }
+            }
+            return Integer.MAX_VALUE;
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    private static long medianTime(PricingEngine engine, OptionContract contract, LatticeModel model,
+                                   PricingWorkspace workspace) {
+        long[] times = new long[5];
+        for (int i = 0; i < times.length; i++) {
+            long start = System.nanoTime();
+            engine.price(contract, model, workspace);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    /**
+     * State of the block being processed, shared by the chunk tasks of one pricing call and reset for the next.
+     */
+    private final class Block {
+        private OptionContract contract;
+        private double[] optionValues;
+        // Value at the first node of chunk k after step t of the block, at edges[k * blockSteps + t].
+        private double[] edges;
+        private double initialPrice;
+        private double downFactor;
+        private double upOverDown;
+        private double q;
+        private double discount;
+        private double up;
+        private double down;
+        private int top;
+        private int depth;
+        private int chunks;
+        private int phase;
+
+        private void reset(OptionContract contract, LatticeModel model, double[] optionValues, double[] edges) {
+            this.contract = contract;
+            this.optionValues = optionValues;
+            this.edges = edges;
+            if (model == null) {
+                return;
+            }
+            this.initialPrice = model.getInitialPrice();
+            this.downFactor = model.getDownFactor();
+            this.upOverDown = model.getUpFactor() / model.getDownFactor();
+            this.q = model.getRiskNeutralProbability();
+            this.discount = 1 / (1 + model.getInterestRate());
+            // As in BinomialEngine.backwardRow, so that the triangles compute identical values.
+            this.up = q * discount;
+            this.down = (1 - q) * discount;
+        }
+
+        private int chunkStart(int chunk) {
+            return chunk * chunkNodes;
+        }
+
+        private int chunkEnd(int chunk) {
+            return chunk == chunks - 1 ? top + 1 : (chunk + 1) * chunkNodes;
+        }
+
+        /**
+         * Advances chunk k through the block over the trapezoid [a, b - t).
+         */
+        private void advanceTrapezoid(int chunk) {
+            int start = chunkStart(chunk);
+            int end = chunkEnd(chunk);
+            for (int t = 1; t <= depth; t++) {
+                edges[chunk * blockSteps + t - 1] = optionValues[start];
+                int to = end - t - 1;
+                if (contract.isAmerican()) {
+                    double lowestPrice = initialPrice * Math.pow(downFactor, top - t) * Math.pow(upOverDown, start);
+                    BinomialEngine.backwardRowAmerican(optionValues, start, to, q, discount, contract, lowestPrice,
+                            upOverDown);
+                } else {
+                    BinomialEngine.backwardRow(optionValues, start, to, q, discount);
+                }
+            }
+        }
+
+        /**
+         * Fills the nodes [a - t, a) left behind to the left of chunk k (k >= 1).
+         */
+        private void fillTriangle(int chunk) {
+            int start = chunkStart(chunk);
+            for (int t = 1; t <= depth; t++) {
+                double stockPrice = initialPrice * Math.pow(downFactor, top - t) * Math.pow(upOverDown, start - t);
+                for (int i = start - t; i < start; i++) {
+                    double next = i + 1 == start ? edges[chunk * blockSteps + t - 1] : optionValues[i + 1];
+                    double value = up * next + down * optionValues[i];
+                    if (contract.isAmerican()) {
+                        value = Math.max(value, contract.payoff(stockPrice));
+                        stockPrice *= upOverDown;
+                    }
+                    optionValues[i] = value < NEGLIGIBLE_VALUE ? 0 : value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the current phase of a block for chunks [from, to), splitting the range across the pool.
+     */
+    private static final class ChunkRange extends RecursiveAction {
+        private final Block block;
+        private final int from;
+        private final int to;
+
+        private ChunkRange(Block block, int from, int to) {
+            this.block = block;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkRange(block, from, middle), new ChunkRange(block, middle, to));
+            } else if (to > from) {
+                if (block.phase == 0) {
+                    block.advanceTrapezoid(from);
+                } else {
+                    block.fillTriangle(from);
+                }
+            }
+        }
+    }
+}
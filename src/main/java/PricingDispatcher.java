@@ -0,0 +1,99 @@
+public class PricingDispatcher {
+
+    /**
+     * Engine chosen for a contract.
+     */
+    public enum Engine {
+        /**
+         * Closed-form Black-Scholes; exact for European options and for American calls without dividends at a
+         * non-negative rate.
+         */
+        ANALYTIC,
+        /** Backward induction on a binomial lattice, needed for American puts and calls at negative rates. */
+        LATTICE
+    }
+
+    private PricingDispatcher() {
+    }
+
+    /**
+     * Selects the cheapest engine that prices the contract exactly. Without dividends and with a non-negative
+     * rate an American call is never exercised early, so it has the same value as the European call; below zero
+     * the strike is worth more paid now than later and early exercise can pay, so it goes to the lattice.
+     *
+     * @param isCall       True for Call option, False for Put option.
+     * @param isAmerican   True for American exercise, False for European exercise.
+     * @param interestRate Continuously compounded risk-free rate per year.
+     * @return The engine {@link #price} will use.
+     */
+    public static Engine selectEngine(boolean isCall, boolean isAmerican, double interestRate) {
+        if (!isAmerican) {
+            return Engine.ANALYTIC;
+        }
+        return isCall && interestRate >= 0 ? Engine.ANALYTIC : Engine.LATTICE;
+    }
+
+    /**
+     * Prices an option on the engine chosen by {@link #selectEngine}.
+     *
+     * @param initialPrice Initial asset price.
+     * @param strikePrice  Strike price of the option.
+     * @param interestRate Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility   Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity     Time to maturity in years.
+     * @param isCall       True for Call option, False for Put option.
+     * @param isAmerican   True for American exercise, False for European exercise.
+     * @param steps        Number of lattice steps, used only when the lattice engine is selected.
+     * @return The option price.
+     */
+    public static double price(double initialPrice, double strikePrice, double interestRate, double volatility,
+                               double maturity, boolean isCall, boolean isAmerican, int steps) {
+        if (selectEngine(isCall, isAmerican, interestRate) == Engine.ANALYTIC) {
+            return BlackScholesModel.price(initialPrice, strikePrice, interestRate, volatility, maturity, isCall);
+        }
+        return priceOnLattice(initialPrice, strikePrice, interestRate, volatility, maturity, isCall, isAmerican, steps);
+    }
+
+    /**
+     * Prices an option on a Cox-Ross-Rubinstein lattice whatever its exercise style, e.g. to validate
+     * the analytic engine.
+     *
+     * @param initialPrice Initial asset price.
+     * @param strikePrice  Strike price of the option.
+     * @param interestRate Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility   Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity     Time to maturity in years.
+     * @param isCall       True for Call option, False for Put option.
+     * @param isAmerican   True for American exercise, False for European exercise.
+     * @param steps        Number of lattice steps.
+     * @return The option price.
+     */
+    public static double priceOnLattice(double initialPrice, double strikePrice, double interestRate,
+                                        double volatility, double maturity, boolean isCall,
+                                        boolean isAmerican, int steps) {
+        return priceOnLattice(initialPrice, strikePrice, interestRate, volatility, maturity, isCall, isAmerican,
+                steps, LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN);
+    }
+
+    /**
+     * Prices an option on a lattice parameterized with the given scheme whatever its exercise style.
+     *
+     * @param initialPrice Initial asset price.
+     * @param strikePrice  Strike price of the option.
+     * @param interestRate Continuously compounded risk-free rate per year (e.g., 0.05 for 5%).
+     * @param volatility   Annualised volatility of the asset (e.g., 0.2 for 20%).
+     * @param maturity     Time to maturity in years.
+     * @param isCall       True for Call option, False for Put option.
+     * @param isAmerican   True for American exercise, False for European exercise.
+     * @param steps        Number of lattice steps (rounded up to odd for Leisen-Reimer).
+     * @param scheme       Rule used to derive the up and down factors.
+     * @return The option price.
+     */
+    public static double priceOnLattice(double initialPrice, double strikePrice, double interestRate,
+                                        double volatility, double maturity, boolean isCall,
+                                        boolean isAmerican, int steps, LatticeParameters.Scheme scheme) {
+        LatticeParameters parameters = new LatticeParameters(scheme, initialPrice, strikePrice, interestRate,
+                volatility, maturity, steps);
+        return parameters.priceWithFastTree(initialPrice, strikePrice, isCall, isAmerican);
+    }
+}
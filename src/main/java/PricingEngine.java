@@ -0,0 +1,16 @@
+/**
+ * Prices an option contract on a lattice model using a caller-owned workspace.
+ * <p>
+ * Engines hold no per-price state, so one instance can be shared by every thread as long as
+ * each thread passes its own {@link PricingWorkspace}.
+ */
+public interface PricingEngine {
+
+    /**
+     * @param contract  The option being priced.
+     * @param model     The market the option is priced in.
+     * @param workspace Scratch buffers owned by the calling thread.
+     * @return The option price.
+     */
+    double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace);
+}
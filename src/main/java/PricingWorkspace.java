@@ -0,0 +1,81 @@
+public class PricingWorkspace {
+    private double[] values;
+    private float[] floatValues = new float[0];
+    private double[] scratch = new double[0];
+    private long nodesEvaluated;
+    private double errorBound;
+
+    /**
+     * Creates an empty workspace; buffers grow on first use.
+     */
+    public PricingWorkspace() {
+        this(0);
+    }
+
+    /**
+     * Caller-owned scratch memory for the pricing engines. A workspace is not thread-safe: each pricing
+     * thread keeps its own and reuses it, so once the buffers have grown to the largest tree priced,
+     * repeated pricing allocates nothing.
+     *
+     * @param capacity Number of nodes to pre-size the buffers for.
+     */
+    public PricingWorkspace(int capacity) {
+        values = new double[capacity];
+    }
+
+    /**
+     * @return A buffer of at least {@code length} doubles for one row of option values. Its contents are unspecified.
+     */
+    public double[] values(int length) {
+        if (values.length < length) {
+            values = new double[Math.max(length, 2 * values.length)];
+        }
+        return values;
+    }
+
+    /**
+     * @return A buffer of at least {@code length} floats for one row of single-precision option values.
+     * Its contents are unspecified.
+     */
+    public float[] floatValues(int length) {
+        if (floatValues.length < length) {
+            floatValues = new float[Math.max(length, 2 * floatValues.length)];
+        }
+        return floatValues;
+    }
+
+    /**
+     * @return A second buffer of at least {@code length} doubles, for state an engine keeps alongside the row of
+     * option values, such as the next stock price of every row of a tile. Its contents are unspecified.
+     */
+    public double[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new double[Math.max(length, 2 * scratch.length)];
+        }
+        return scratch;
+    }
+
+    /**
+     * @return How many lattice nodes the last price on this workspace evaluated with the backward stencil.
+     */
+    public long getNodesEvaluated() {
+        return nodesEvaluated;
+    }
+
+    /**
+     * @return The bound on the error an approximating engine, such as {@link TruncatedBinomialEngine}, added to
+     * the last price on this workspace; zero after an exact price.
+     */
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    void setNodesEvaluated(long nodesEvaluated) {
+        this.nodesEvaluated = nodesEvaluated;
+        this.errorBound = 0;
+    }
+
+    void setErrorBound(double errorBound) {
+        this.errorBound = errorBound;
+    }
+}
@@ -0,0 +1,351 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultStore implements Closeable {
+    private static final long MAGIC = 0x4f50525354524531L;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int RECORD_BYTES = 24;
+    private static final int SEGMENT_RECORDS = 1 << 18;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final double MAX_LOAD = 0.6;
+
+    // Header fields.
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int SIZE_OFFSET = 16;
+    private static final int GENERATION_OFFSET = 20;
+    private static final int RECORDS_OFFSET = 24;
+
+    private final Path directory;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+    private int generation;
+    private long records;
+
+    /**
+     * A persistent map from pricing inputs to prices, so that restarts and repeated sweeps read earlier results
+     * instead of recomputing them.
+     * <p>
+     * The store is a directory holding an open-addressing index file and append-only value segments, all memory
+     * mapped. A key is a pair of independent 64-bit hashes of the engine version and the full parameter tuple
+     * (see {@link #key}). Each value is appended to the current segment as a (hash, hash, price) record and the
+     * index slot for the first hash, found by linear probing, points at it; storing a key again appends a new
+     * record and repoints the slot, leaving the old record as garbage until {@link #compact()}. The index is
+     * rebuilt at twice the size when it is more than {@value #MAX_LOAD} full.
+     * <p>
+     * Records are written before the index entry and the index entry's hash last, so a process that dies midway
+     * loses at most the value being stored. The store is not meant to be shared between processes; within one
+     * process it is thread-safe.
+     *
+     * @param directory Directory of the store; created if it does not exist.
+     */
+    public ResultStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path indexFile = directory.resolve("index");
+        if (!Files.exists(indexFile)) {
+            writeIndex(indexFile, INITIAL_CAPACITY, new long[0], new long[0], 0, 0);
+        }
+        index = map(indexFile, -1);
+        if (index.getLong(0) != MAGIC || index.getInt(8) != FORMAT_VERSION) {
+            throw new IOException("Not a result store index: " + indexFile);
+        }
+        capacity = index.getInt(CAPACITY_OFFSET);
+        size = index.getInt(SIZE_OFFSET);
+        generation = index.getInt(GENERATION_OFFSET);
+        records = index.getLong(RECORDS_OFFSET);
+        for (int segment = 0; (long) segment * SEGMENT_RECORDS < records; segment++) {
+            segments.add(map(segmentFile(generation, segment), (long) SEGMENT_RECORDS * RECORD_BYTES));
+        }
+        deleteOtherGenerations();
+    }
+
+    /**
+     * Builds the key of a result.
+     *
+     * @param engineVersion Name and version of the pricing code; change it whenever that code's results change,
+     *                      so stale results are never returned.
+     * @param parameters    Every input the price depends on, in a fixed order; flags and counts as 0/1 and
+     *                      whole numbers.
+     */
+    public static Key key(String engineVersion, double... parameters) {
+        long first = 0x243f6a8885a308d3L;
+        long second = 0x13198a2e03707344L;
+        for (int i = 0; i < engineVersion.length(); i++) {
+            first = mix(first ^ engineVersion.charAt(i));
+            second = mix(second + engineVersion.charAt(i) * 0x9e3779b97f4a7c15L);
+        }
+        first = mix(first ^ parameters.length);
+        second = mix(second + parameters.length);
+        for (double parameter : parameters) {
+            // Normalise -0.0 to 0.0 so that equal inputs give equal keys.
+            long bits = Double.doubleToLongBits(parameter + 0.0);
+            first = mix(first ^ bits);
+            second = mix(second + Long.rotateLeft(bits, 29) * 0x9e3779b97f4a7c15L);
+        }
+        return new Key(first == 0 ? 1 : first, second);
+    }
+
+    /**
+     * @return Whether a price is stored for the key, NaN included.
+     */
+    public synchronized boolean contains(Key key) {
+        int slot = find(key);
+        return slot >= 0 && slotHash(slot) != 0;
+    }
+
+    /**
+     * @return The stored price for the key, or NaN if there is none; a stored NaN is told apart from a missing
+     * key with {@link #contains}.
+     */
+    public synchronized double get(Key key) {
+        int slot = find(key);
+        if (slot < 0 || slotHash(slot) == 0) {
+            return Double.NaN;
+        }
+        long record = index.getLong(slotOffset(slot) + 8) - 1;
+        return segments.get((int) (record / SEGMENT_RECORDS))
+                .getDouble((int) (record % SEGMENT_RECORDS) * RECORD_BYTES + 16);
+    }
+
+    public synchronized void put(Key key, double price) throws IOException {
+        if (size + 1 > capacity * MAX_LOAD) {
+            resize(capacity * 2);
+        }
+        long record = append(key, price);
+        int slot = find(key);
+        int offset = slotOffset(slot);
+        boolean added = index.getLong(offset) == 0;
+        index.putLong(offset + 8, record + 1);
+        index.putLong(offset, key.first);
+        if (added) {
+            size++;
+            index.putInt(SIZE_OFFSET, size);
+        }
+    }
+
+    /**
+     * @return The number of distinct keys stored.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of records in the value segments, including superseded ones.
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * Copies the live records into a new generation of segments, builds a matching index and switches to it
+     * with an atomic rename, then deletes the old segments. A crash before the rename leaves the old generation
+     * in use; one after it leaves only stale files, removed when the store is next opened.
+     */
+    public synchronized void compact() throws IOException {
+        long[] firsts = new long[size];
+        long[] seconds = new long[size];
+        double[] prices = new double[size];
+        int live = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (slotHash(slot) != 0) {
+                long record = index.getLong(slotOffset(slot) + 8) - 1;
+                MappedByteBuffer segment = segments.get((int) (record / SEGMENT_RECORDS));
+                int position = (int) (record % SEGMENT_RECORDS) * RECORD_BYTES;
+                firsts[live] = segment.getLong(position);
+                seconds[live] = segment.getLong(position + 8);
+                prices[live] = segment.getDouble(position + 16);
+                live++;
+            }
+        }
+
+        int newGeneration = generation + 1;
+        List<MappedByteBuffer> newSegments = new ArrayList<>();
+        long[] recordNumbers = new long[live];
+        for (int i = 0; i < live; i++) {
+            if (i % SEGMENT_RECORDS == 0) {
+                newSegments.add(map(segmentFile(newGeneration, i / SEGMENT_RECORDS),
+                        (long) SEGMENT_RECORDS * RECORD_BYTES));
+            }
+            writeRecord(newSegments.get(i / SEGMENT_RECORDS), i % SEGMENT_RECORDS, firsts[i], seconds[i], prices[i]);
+            recordNumbers[i] = i;
+        }
+        for (MappedByteBuffer segment : newSegments) {
+            segment.force();
+        }
+        Path temporary = directory.resolve("index.tmp");
+        writeIndex(temporary, capacity, firsts, recordNumbers, newGeneration, live);
+        Files.move(temporary, directory.resolve("index"), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        index = map(directory.resolve("index"), -1);
+        segments.clear();
+        segments.addAll(newSegments);
+        generation = newGeneration;
+        records = live;
+        deleteOtherGenerations();
+    }
+
+    /**
+     * Flushes the mappings to disk.
+     */
+    @Override
+    public synchronized void close() {
+        index.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * @return The slot holding the key, or the empty slot where it belongs.
+     */
+    private int find(Key key) {
+        int mask = capacity - 1;
+        int slot = (int) (key.first ^ key.first >>> 32) & mask;
+        while (true) {
+            long hash = slotHash(slot);
+            if (hash == 0) {
+                return slot;
+            }
+            if (hash == key.first) {
+                long record = index.getLong(slotOffset(slot) + 8) - 1;
+                if (segments.get((int) (record / SEGMENT_RECORDS))
+                        .getLong((int) (record % SEGMENT_RECORDS) * RECORD_BYTES + 8) == key.second) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private long append(Key key, double price) throws IOException {
+        int segment = (int) (records / SEGMENT_RECORDS);
+        if (segment == segments.size()) {
+            segments.add(map(segmentFile(generation, segment), (long) SEGMENT_RECORDS * RECORD_BYTES));
+        }
+        writeRecord(segments.get(segment), (int) (records % SEGMENT_RECORDS), key.first, key.second, price);
+        long record = records++;
+        index.putLong(RECORDS_OFFSET, records);
+        return record;
+    }
+
+    private void resize(int newCapacity) throws IOException {
+        long[] firsts = new long[size];
+        long[] recordNumbers = new long[size];
+        int live = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (slotHash(slot) != 0) {
+                firsts[live] = slotHash(slot);
+                recordNumbers[live] = index.getLong(slotOffset(slot) + 8) - 1;
+                live++;
+            }
+        }
+        Path temporary = directory.resolve("index.tmp");
+        writeIndex(temporary, newCapacity, firsts, recordNumbers, generation, records);
+        Files.move(temporary, directory.resolve("index"), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        index = map(directory.resolve("index"), -1);
+        capacity = newCapacity;
+    }
+
+    /**
+     * Writes a complete index file of the given capacity holding the given entries.
+     */
+    private static void writeIndex(Path file, int capacity, long[] firsts, long[] recordNumbers, int generation,
+                                   long records) throws IOException {
+        Files.deleteIfExists(file);
+        MappedByteBuffer buffer = map(file, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        buffer.putLong(0, MAGIC);
+        buffer.putInt(8, FORMAT_VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SIZE_OFFSET, firsts.length);
+        buffer.putInt(GENERATION_OFFSET, generation);
+        buffer.putLong(RECORDS_OFFSET, records);
+        int mask = capacity - 1;
+        for (int i = 0; i < firsts.length; i++) {
+            int slot = (int) (firsts[i] ^ firsts[i] >>> 32) & mask;
+            while (buffer.getLong(HEADER_BYTES + slot * SLOT_BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            buffer.putLong(HEADER_BYTES + slot * SLOT_BYTES, firsts[i]);
+            buffer.putLong(HEADER_BYTES + slot * SLOT_BYTES + 8, recordNumbers[i] + 1);
+        }
+        buffer.force();
+    }
+
+    private static void writeRecord(MappedByteBuffer segment, int position, long first, long second, double price) {
+        int offset = position * RECORD_BYTES;
+        segment.putLong(offset, first);
+        segment.putLong(offset + 8, second);
+        segment.putDouble(offset + 16, price);
+    }
+
+    private long slotHash(int slot) {
+        return index.getLong(slotOffset(slot));
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private Path segmentFile(int generation, int segment) {
+        return directory.resolve("segment-" + generation + "-" + segment);
+    }
+
+    private void deleteOtherGenerations() throws IOException {
+        String current = "segment-" + generation + "-";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*")) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().startsWith(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a file read-write, first extending it to {@code length} bytes unless that is negative.
+     */
+    private static MappedByteBuffer map(Path file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (length >= 0 && raf.length() < length) {
+                raf.setLength(length);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Identity of a stored result: two independent 64-bit hashes of its inputs, so that distinct inputs collide
+     * with probability about 2^-128.
+     */
+    public static final class Key {
+        private final long first;
+        private final long second;
+
+        private Key(long first, long second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+}
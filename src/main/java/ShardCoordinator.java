@@ -0,0 +1,434 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+public class ShardCoordinator {
+    private final SweepJob job;
+    private final int shardSize;
+    private final int shards;
+    private final List<String> workerOptions;
+    private final int shardTimeoutMillis;
+    private final ResultStore store;
+
+    private final LinkedBlockingDeque<Integer> pending = new LinkedBlockingDeque<>();
+    private final double[][] results;
+    private final List<Process> processes = new ArrayList<>();
+    // Whether worker i has identified itself over a connection; a worker that dies before that has no
+    // connection to fail, so the coordinator polls for it instead.
+    private final List<Boolean> connected = new ArrayList<>();
+    private int port;
+    private int liveWorkers;
+    private int respawnsLeft;
+    // Set once every row is written; from then on failing workers are not replaced.
+    private boolean finished;
+    private int requeued;
+    private int storedShards;
+    private IOException failure;
+
+    /**
+     * Splits a sweep into shards of consecutive items and prices them in separate worker JVMs, so that sweeps
+     * too large for one process's heap and collector can use every core of a box (or, with the same protocol,
+     * several boxes).
+     *
+     * @param job                The sweep to price.
+     * @param shardSize          Number of consecutive items per shard.
+     * @param workerOptions      Extra JVM options for every worker, e.g. {@code -Xmx512m}.
+     * @param shardTimeoutMillis Time a worker may take over one shard before it is presumed hung and replaced.
+     */
+    public ShardCoordinator(SweepJob job, int shardSize, List<String> workerOptions, int shardTimeoutMillis) {
+        this(job, shardSize, workerOptions, shardTimeoutMillis, null);
+    }
+
+    /**
+     * As {@link #ShardCoordinator(SweepJob, int, List, int)}, reusing earlier results: shards whose items are
+     * all in the store are read from it instead of being sent to a worker, and every price computed is added.
+     *
+     * @param store Persistent results, or null to price everything.
+     */
+    public ShardCoordinator(SweepJob job, int shardSize, List<String> workerOptions, int shardTimeoutMillis,
+                            ResultStore store) {
+        if (shardSize <= 0 || shardTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Shard size and timeout must be positive");
+        }
+        long shardCount = (job.size() + shardSize - 1) / shardSize;
+        if (shardCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many shards; increase the shard size");
+        }
+        this.job = job;
+        this.shardSize = shardSize;
+        this.shards = (int) shardCount;
+        this.workerOptions = new ArrayList<>(workerOptions);
+        this.shardTimeoutMillis = shardTimeoutMillis;
+        this.results = new double[shards][];
+        this.store = store;
+    }
+
+    /**
+     * Runs the sweep on {@code workers} worker processes and writes one CSV row per item, in item order, as soon
+     * as every earlier shard has arrived; later shards that finish early wait in memory.
+     * <p>
+     * Workers are started with this JVM's class path and connect back over the loopback interface. A worker that
+     * exits, drops its connection or exceeds the shard timeout is killed, its unfinished shard is put back at the
+     * head of the queue, and a replacement is started while shards remain, up to {@code workers} replacements in
+     * total. Workers that exit before connecting are replaced the same way. Once no worker is left and no
+     * replacement may be started, the run fails with an {@link IOException}.
+     *
+     * @param workers        Number of worker processes.
+     * @param crashAfterShards For testing: the first worker halts in the middle of the shard after this many;
+     *                       negative to disable.
+     * @param out            Destination of the CSV rows.
+     */
+    public void run(int workers, int crashAfterShards, Writer out) throws IOException, InterruptedException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("At least one worker is required");
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            double[] stored = store == null ? null : storedPrices(shard);
+            if (stored != null) {
+                results[shard] = stored;
+                storedShards++;
+            } else {
+                pending.add(shard);
+            }
+        }
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            synchronized (this) {
+                port = server.getLocalPort();
+                respawnsLeft = workers;
+                for (int i = 0; i < workers && !pending.isEmpty(); i++) {
+                    startWorker(i, i == 0 ? crashAfterShards : -1);
+                }
+            }
+            Thread acceptor = new Thread(() -> accept(server), "shard-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            out.write(SweepJob.CSV_HEADER + ",Price\n");
+            for (int shard = 0; shard < shards; shard++) {
+                double[] prices = awaitShard(shard);
+                long first = (long) shard * shardSize;
+                for (int i = 0; i < prices.length; i++) {
+                    out.write(job.describe(first + i) + "," + prices[i] + "\n");
+                }
+                synchronized (this) {
+                    results[shard] = null;
+                }
+            }
+            out.flush();
+        } finally {
+            synchronized (this) {
+                finished = true;
+                for (int i = 0; i < processes.size(); i++) {
+                    pending.offerFirst(-1);
+                }
+                for (int workerId = 0; workerId < processes.size(); workerId++) {
+                    Process process = processes.get(workerId);
+                    // A worker still starting up has nothing to finish and nowhere left to connect.
+                    if (!connected.get(workerId) || !process.waitFor(1, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a demonstration sweep: calls and puts, European and American, at strikes 80..120, three step counts,
+     * and initial prices 80..120 under three volatilities.
+     * <p>
+     * Arguments are {@code key=value} pairs, all optional:
+     * <ul>
+     *     <li>{@code workers} - worker processes (default: available processors);</li>
+     *     <li>{@code shardSize} - items per shard (default 64);</li>
+     *     <li>{@code steps} - comma-separated step counts (default 200,400,800);</li>
+     *     <li>{@code heap} - maximum heap of each worker, e.g. 256m (default: the JVM's own default);</li>
+     *     <li>{@code timeout} - seconds a worker may spend on one shard (default 300);</li>
+     *     <li>{@code crash} - make the first worker halt after this many shards, to exercise re-queueing;</li>
+     *     <li>{@code store} - directory of a {@link ResultStore} to reuse and extend across runs (default: none);</li>
+     *     <li>{@code output} - CSV file to write (default: standard output).</li>
+     * </ul>
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int workers = Runtime.getRuntime().availableProcessors();
+        int shardSize = 64;
+        String steps = "200,400,800";
+        List<String> workerOptions = new ArrayList<>();
+        int timeoutSeconds = 300;
+        int crashAfterShards = -1;
+        String output = null;
+        String storeDirectory = null;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Arguments must be key=value pairs: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            switch (key) {
+                case "workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "shardSize":
+                    shardSize = Integer.parseInt(value);
+                    break;
+                case "steps":
+                    steps = value;
+                    break;
+                case "heap":
+                    workerOptions.add("-Xmx" + value);
+                    break;
+                case "timeout":
+                    timeoutSeconds = Integer.parseInt(value);
+                    break;
+                case "crash":
+                    crashAfterShards = Integer.parseInt(value);
+                    break;
+                case "store":
+                    storeDirectory = value;
+                    break;
+                case "output":
+                    output = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + key);
+            }
+        }
+
+        double[] strikePrices = new double[36];
+        boolean[] isCall = new boolean[36];
+        boolean[] isAmerican = new boolean[36];
+        for (int i = 0; i < 36; i++) {
+            strikePrices[i] = 80 + 5 * (i / 4);
+            isCall[i] = i % 2 == 0;
+            isAmerican[i] = i % 4 >= 2;
+        }
+        String[] stepValues = steps.split(",");
+        int[] stepCounts = new int[stepValues.length];
+        for (int i = 0; i < stepValues.length; i++) {
+            stepCounts[i] = Integer.parseInt(stepValues[i].trim());
+        }
+        double[] initialPrices = new double[27];
+        double[] volatilities = new double[27];
+        for (int i = 0; i < 27; i++) {
+            initialPrices[i] = 80 + 5 * (i / 3);
+            volatilities[i] = new double[]{0.15, 0.2, 0.3}[i % 3];
+        }
+        SweepJob job = new SweepJob(strikePrices, isCall, isAmerican, stepCounts, initialPrices, volatilities,
+                0.05, 1);
+
+        ResultStore store = storeDirectory == null ? null : new ResultStore(Paths.get(storeDirectory));
+        ShardCoordinator coordinator = new ShardCoordinator(job, shardSize, workerOptions, timeoutSeconds * 1000,
+                store);
+        long start = System.nanoTime();
+        try (Writer out = new BufferedWriter(output == null
+                ? new OutputStreamWriter(System.out) : new FileWriter(output))) {
+            coordinator.run(workers, crashAfterShards, out);
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+        System.err.printf("%d items in %d shards on %d workers: %.2f s, %d shards from the store, %d re-queued%n",
+                job.size(), coordinator.shards, workers, (System.nanoTime() - start) / 1e9,
+                coordinator.getStoredShards(), coordinator.getRequeuedShards());
+    }
+
+    /**
+     * @return The number of shards that had to be priced again because their worker failed.
+     */
+    public synchronized int getRequeuedShards() {
+        return requeued;
+    }
+
+    /**
+     * @return The number of shards read from the result store instead of being priced.
+     */
+    public synchronized int getStoredShards() {
+        return storedShards;
+    }
+
+    /**
+     * @return The shard's prices if the store has all of them, otherwise null.
+     */
+    private double[] storedPrices(int shard) {
+        long from = (long) shard * shardSize;
+        double[] prices = new double[(int) (Math.min(from + shardSize, job.size()) - from)];
+        for (int i = 0; i < prices.length; i++) {
+            ResultStore.Key key = job.storeKey(from + i);
+            // Prices may be NaN for inputs the engine cannot price, so NaN alone does not mean missing.
+            if (!store.contains(key)) {
+                return null;
+            }
+            prices[i] = store.get(key);
+        }
+        return prices;
+    }
+
+    private synchronized double[] awaitShard(int shard) throws InterruptedException, IOException {
+        while (results[shard] == null) {
+            if (failure != null) {
+                throw failure;
+            }
+            // Workers that die before connecting have no connection to notice it.
+            for (int workerId = 0; workerId < processes.size(); workerId++) {
+                Process process = processes.get(workerId);
+                if (!connected.get(workerId) && !process.isAlive()) {
+                    connected.set(workerId, true);
+                    liveWorkers--;
+                    System.err.println("Worker " + workerId + " exited before connecting (exit code "
+                            + process.exitValue() + ")");
+                    replaceWorker();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (liveWorkers == 0) {
+                throw new IOException("All workers exited and no replacements are left");
+            }
+            wait(1000);
+        }
+        return results[shard];
+    }
+
+    private void startWorker(int workerId, int crashAfterShards) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(workerOptions);
+        if (crashAfterShards >= 0) {
+            command.add("-Dsweep.crashAfterShards=" + crashAfterShards);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(Integer.toString(port));
+        command.add(Integer.toString(workerId));
+        processes.add(new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start());
+        connected.add(false);
+        liveWorkers++;
+    }
+
+    /**
+     * Starts a replacement for a failed worker while shards remain to be priced and replacements are left.
+     */
+    private void replaceWorker() {
+        if (finished || pending.isEmpty() || respawnsLeft == 0) {
+            return;
+        }
+        respawnsLeft--;
+        try {
+            startWorker(processes.size(), -1);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void accept(ServerSocket server) {
+        while (true) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return;
+            }
+            Thread handler = new Thread(() -> serve(socket), "shard-connection");
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+
+    /**
+     * Feeds shards to one worker until the queue is closed, re-queueing the shard in flight if the worker fails.
+     */
+    private void serve(Socket socket) {
+        int workerId = -1;
+        Integer shard = null;
+        try (Socket connection = socket) {
+            connection.setTcpNoDelay(true);
+            connection.setSoTimeout(shardTimeoutMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            int id = in.readInt();
+            synchronized (this) {
+                if (id < 0 || id >= processes.size() || connected.get(id)) {
+                    throw new IOException("Unexpected worker id " + id);
+                }
+                connected.set(id, true);
+                workerId = id;
+            }
+            job.write(out);
+            out.flush();
+            while (true) {
+                shard = pending.take();
+                if (shard < 0) {
+                    out.writeInt(-1);
+                    out.flush();
+                    return;
+                }
+                long from = (long) shard * shardSize;
+                long to = Math.min(from + shardSize, job.size());
+                out.writeInt(shard);
+                out.writeLong(from);
+                out.writeLong(to);
+                out.flush();
+                if (in.readInt() != shard || in.readInt() != to - from) {
+                    throw new IOException("Worker " + workerId + " answered with the wrong shard");
+                }
+                double[] prices = new double[(int) (to - from)];
+                for (int i = 0; i < prices.length; i++) {
+                    prices[i] = in.readDouble();
+                }
+                if (store != null) {
+                    for (int i = 0; i < prices.length; i++) {
+                        store.put(job.storeKey(from + i), prices[i]);
+                    }
+                }
+                synchronized (this) {
+                    results[shard] = prices;
+                    notifyAll();
+                }
+                shard = null;
+            }
+        } catch (IOException | InterruptedException e) {
+            workerFailed(workerId, shard, e);
+        }
+    }
+
+    private synchronized void workerFailed(int workerId, Integer shard, Exception cause) {
+        // A connection that never identified its worker is left to awaitShard, which sees the process exit.
+        if (workerId < 0) {
+            return;
+        }
+        liveWorkers--;
+        if (shard != null && shard >= 0) {
+            pending.offerFirst(shard);
+            requeued++;
+        }
+        if (!finished) {
+            System.err.println("Worker " + workerId + " failed (" + cause + "); shard " + shard + " re-queued");
+        }
+        // The process may still be alive but hung; make sure it is gone before replacing it.
+        processes.get(workerId).destroyForcibly();
+        replaceWorker();
+        if (liveWorkers == 0 && failure == null && !finished) {
+            failure = new IOException("All workers failed and no replacements are left", cause);
+        }
+        notifyAll();
+    }
+}
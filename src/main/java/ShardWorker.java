@@ -0,0 +1,55 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+public class ShardWorker {
+    /**
+     * Worker process of a {@link ShardCoordinator}: connects back to the coordinator on the loopback interface,
+     * receives the sweep definition, then prices shards until told to stop, streaming each shard's prices back.
+     * <p>
+     * Arguments: coordinator port, worker id. For testing re-queueing, the system property
+     * {@code sweep.crashAfterShards} makes the process halt abruptly in the middle of the shard after that many
+     * completed ones.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        int workerId = Integer.parseInt(args[1]);
+        int crashAfterShards = Integer.getInteger("sweep.crashAfterShards", -1);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(workerId);
+            out.flush();
+
+            SweepJob job = SweepJob.read(in);
+            PricingEngine engine = new BinomialEngine();
+            PricingWorkspace workspace = new PricingWorkspace();
+            int completed = 0;
+            while (true) {
+                int shard = in.readInt();
+                if (shard < 0) {
+                    return;
+                }
+                long from = in.readLong();
+                long to = in.readLong();
+                out.writeInt(shard);
+                out.writeInt((int) (to - from));
+                for (long index = from; index < to; index++) {
+                    if (completed == crashAfterShards && index > (from + to) / 2) {
+                        out.flush();
+                        Runtime.getRuntime().halt(1);
+                    }
+                    out.writeDouble(job.price(index, engine, workspace));
+                }
+                out.flush();
+                completed++;
+            }
+        }
+    }
+}
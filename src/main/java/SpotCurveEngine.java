@@ -0,0 +1,116 @@
+public class SpotCurveEngine {
+    /**
+     * Prices one option across a grid of spot levels, with delta and gamma, from a single backward pass.
+     * <p>
+     * The lattice is widened by k nodes on either side of every row, which is the lattice of the model started
+     * 2k steps before t = 0: its t = 0 row holds the 2k + 1 spot levels S0 (u / d)^j, j = -k..k, and the value at
+     * each is exactly the price a separate n-step tree rooted there would give. k is the smallest count whose
+     * levels bracket every requested spot with one level to spare, so the pass costs n (n + 1) / 2 + 2 k n nodes
+     * instead of one full tree per point. Delta and gamma at each level come from three-point differences over
+     * the neighbouring levels; a requested spot between two levels gets the cubic Hermite interpolant of their
+     * values and deltas, and the linear interpolant of their gammas.
+     *
+     * @param contract  The option priced at every spot; barrier contracts are not supported.
+     * @param model     The market; its initial price is the centre of the levels.
+     * @param spots     Spot levels to price at, all positive.
+     * @param prices    Receives the option price at each spot.
+     * @param deltas    Receives dV/dS at each spot.
+     * @param gammas    Receives d2V/dS2 at each spot.
+     * @param workspace Scratch buffers owned by the calling thread.
+     */
+    public void priceCurve(OptionContract contract, LatticeModel model, double[] spots, double[] prices,
+                           double[] deltas, double[] gammas, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Spot curves do not support barrier options");
+        }
+        if (prices.length != spots.length || deltas.length != spots.length || gammas.length != spots.length) {
+            throw new IllegalArgumentException("All curve arrays must have the same length");
+        }
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double upOverDown = upFactor / downFactor;
+        double logUpOverDown = Math.log(upOverDown);
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+
+        double widestLog = 0;
+        for (double spot : spots) {
+            if (!(spot > 0)) {
+                throw new IllegalArgumentException("Spot levels must be positive");
+            }
+            widestLog = Math.max(widestLog, Math.abs(Math.log(spot / initialPrice)));
+        }
+        long levels = Math.max(2, (long) Math.ceil(widestLog / logUpOverDown) + 1);
+        if (steps + 2 * levels >= Integer.MAX_VALUE
+                || LogSpaceBinomialEngine.needsLogSpace(model.withSteps(steps + 2 * (int) levels))) {
+            throw new IllegalArgumentException("Tree too deep or spot grid too wide for a spot curve");
+        }
+        int k = (int) levels;
+
+        // optionValues[i + k] holds node i of the current row, i = -k..step + k.
+        double[] optionValues = workspace.values(steps + 2 * k + 1);
+        for (int i = -k; i <= steps + k; i++) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            optionValues[i + k] = contract.payoff(stockPrice);
+        }
+        for (int step = steps - 1; step >= 0; step--) {
+            if (contract.isAmerican()) {
+                double lowestPrice = initialPrice * Math.pow(downFactor, step) * Math.pow(upOverDown, -k);
+                BinomialEngine.backwardRowAmerican(optionValues, 0, step + 2 * k, q, discount, contract,
+                        lowestPrice, upOverDown);
+            } else {
+                BinomialEngine.backwardRow(optionValues, 0, step + 2 * k, q, discount);
+            }
+        }
+        workspace.setNodesEvaluated((long) steps * (steps + 1) / 2 + 2L * k * steps);
+
+        // Level j of the t = 0 row is at optionValues[j + k]; differences need both neighbours, so only the
+        // inner levels -k + 1..k - 1 get greeks, and the grid lies within them by the choice of k.
+        for (int s = 0; s < spots.length; s++) {
+            double offset = Math.log(spots[s] / initialPrice) / logUpOverDown;
+            int j = Math.min(k - 2, Math.max(-k + 1, (int) Math.floor(offset)));
+            double lowSpot = initialPrice * Math.pow(upOverDown, j);
+            double highSpot = lowSpot * upOverDown;
+            double width = highSpot - lowSpot;
+            double t = Math.min(1, Math.max(0, (spots[s] - lowSpot) / width));
+
+            double lowValue = optionValues[j + k];
+            double highValue = optionValues[j + k + 1];
+            double lowDelta = levelDelta(optionValues, j + k, lowSpot, upOverDown);
+            double highDelta = levelDelta(optionValues, j + k + 1, highSpot, upOverDown);
+            double lowGamma = levelGamma(optionValues, j + k, lowSpot, upOverDown);
+            double highGamma = levelGamma(optionValues, j + k + 1, highSpot, upOverDown);
+
+            // Cubic Hermite basis on [lowSpot, highSpot].
+            double t2 = t * t;
+            double t3 = t2 * t;
+            prices[s] = (2 * t3 - 3 * t2 + 1) * lowValue + (t3 - 2 * t2 + t) * width * lowDelta
+                    + (-2 * t3 + 3 * t2) * highValue + (t3 - t2) * width * highDelta;
+            deltas[s] = ((6 * t2 - 6 * t) * lowValue + (3 * t2 - 4 * t + 1) * width * lowDelta
+                    + (-6 * t2 + 6 * t) * highValue + (3 * t2 - 2 * t) * width * highDelta) / width;
+            gammas[s] = (1 - t) * lowGamma + t * highGamma;
+        }
+    }
+
+    /**
+     * @return The three-point first derivative at level index {@code node}, whose spot is {@code spot}.
+     */
+    private static double levelDelta(double[] values, int node, double spot, double upOverDown) {
+        double below = spot - spot / upOverDown;
+        double above = spot * upOverDown - spot;
+        return (values[node + 1] - values[node]) / above * below / (below + above)
+                + (values[node] - values[node - 1]) / below * above / (below + above);
+    }
+
+    /**
+     * @return The three-point second derivative at level index {@code node}, whose spot is {@code spot}.
+     */
+    private static double levelGamma(double[] values, int node, double spot, double upOverDown) {
+        double below = spot - spot / upOverDown;
+        double above = spot * upOverDown - spot;
+        return 2 * ((values[node + 1] - values[node]) / above - (values[node] - values[node - 1]) / below)
+                / (below + above);
+    }
+}
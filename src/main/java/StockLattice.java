@@ -0,0 +1,83 @@
+public class StockLattice {
+    private final double initialPrice;
+    private final double upFactor;
+    private final double downFactor;
+    private final int steps;
+    private final double[][] stockPrices;
+
+    /**
+     * The asset prices of every node of a recombining binomial tree. They depend only on the spot, the factors
+     * and the number of steps, so one lattice can be shared by every option priced on the same underlying
+     * (see {@link MultiStepBinomialTree#MultiStepBinomialTree(StockLattice, DiscountingContext, double, boolean)}).
+     * Row i has i + 1 entries, entry j being the price after j up moves; the rows must not be modified.
+     *
+     * @param initialPrice Initial asset price.
+     * @param upFactor     Upward movement factor.
+     * @param downFactor   Downward movement factor.
+     * @param steps        Number of steps in the tree.
+     */
+    public StockLattice(double initialPrice, double upFactor, double downFactor, int steps) {
+        if (steps <= 0) {
+            throw new IllegalArgumentException("Steps must be greater than zero");
+        }
+        this.initialPrice = initialPrice;
+        this.upFactor = upFactor;
+        this.downFactor = downFactor;
+        this.steps = steps;
+
+        stockPrices = new double[steps + 1][];
+        for (int step = 0; step <= steps; step++) {
+            stockPrices[step] = new double[step + 1];
+        }
+        double largestLog = Math.max(Math.abs(Math.log(upFactor)), Math.abs(Math.log(downFactor)));
+        if (steps * largestLog + Math.abs(Math.log(initialPrice)) <= LogSpaceBinomialEngine.DIRECT_POWER_LIMIT) {
+            double[] upPowers = precomputePowers(upFactor, steps);
+            double[] downPowers = precomputePowers(downFactor, steps);
+            for (int step = 0; step <= steps; step++) {
+                for (int i = 0; i <= step; i++) {
+                    stockPrices[step][i] = initialPrice * upPowers[i] * downPowers[step - i];
+                }
+            }
+        } else {
+            // The powers would overflow or underflow (and their products turn into NaN); use log offsets.
+            double logInitialPrice = Math.log(initialPrice);
+            double logUp = Math.log(upFactor);
+            double logDown = Math.log(downFactor);
+            for (int step = 0; step <= steps; step++) {
+                for (int i = 0; i <= step; i++) {
+                    stockPrices[step][i] = Math.min(LatticeModel.MAX_NODE_PRICE,
+                            Math.exp(logInitialPrice + i * logUp + (step - i) * logDown));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code cached} if it was built from the same inputs, otherwise a new lattice.
+     */
+    public static StockLattice reuseOrBuild(StockLattice cached, double initialPrice, double upFactor,
+                                            double downFactor, int steps) {
+        if (cached != null && cached.initialPrice == initialPrice && cached.upFactor == upFactor
+                && cached.downFactor == downFactor && cached.steps == steps) {
+            return cached;
+        }
+        return new StockLattice(initialPrice, upFactor, downFactor, steps);
+    }
+
+    private static double[] precomputePowers(double factor, int steps) {
+        double[] powers = new double[steps + 1];
+        powers[0] = 1.0;
+        for (int i = 1; i <= steps; i++) {
+            powers[i] = powers[i - 1] * factor;
+        }
+        return powers;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public double[][] getStockPrices() {
+        return stockPrices;
+    }
+}
@@ -0,0 +1,283 @@
+public class StrikeLadderEngine {
+    // Same flush threshold as BinomialEngine: keeps deep out-of-the-money strikes out of subnormal arithmetic.
+    private static final double NEGLIGIBLE_VALUE = 1e-250;
+    // Terminal weights below this are dropped; they cannot move a price.
+    private static final double NEGLIGIBLE_WEIGHT = 1e-300;
+
+    /**
+     * Prices a ladder of vanilla options on the same underlying and expiry, sharing the lattice between strikes.
+     * <p>
+     * Options that are never exercised early (European options, and American calls when r >= 0) are priced from
+     * the discounted risk-neutral distribution of the terminal row, which is what the backward pass computes
+     * for them: the distribution and its cumulative sums are built once in O(n), after which each strike costs
+     * O(log n). American puts share one backward pass in which the values of all strikes at a node are stored
+     * next to each other ({@code values[node * puts + k]}), so the stencil's inner loop runs across strikes
+     * over contiguous memory. As in {@link BinomialEngine}, nodes below the exercise boundary of every strike
+     * and above the zero region of every strike are filled analytically rather than visited.
+     *
+     * @param model        The market shared by every option of the ladder.
+     * @param strikePrices Strike price of each option.
+     * @param isCall       True for Call option, False for Put option, per option.
+     * @param isAmerican   True for American exercise of every option, False for European exercise.
+     * @param prices       Receives the price of each option.
+     * @param workspace    Scratch buffers owned by the calling thread.
+     */
+    public void priceLadder(LatticeModel model, double[] strikePrices, boolean[] isCall, boolean isAmerican,
+                            double[] prices, PricingWorkspace workspace) {
+        int strikes = strikePrices.length;
+        if (isCall.length != strikes || prices.length != strikes) {
+            throw new IllegalArgumentException("All ladder arrays must have the same length");
+        }
+        int steps = model.getSteps();
+        // With r >= 0 a call's continuation value S - K / (1 + r)^m never falls below its payoff.
+        boolean callsExercisedEarly = model.getInterestRate() < 0;
+
+        int lanes = 0;
+        for (int k = 0; k < strikes; k++) {
+            if (isAmerican && (!isCall[k] || callsExercisedEarly)) {
+                lanes++;
+            }
+        }
+        long latticeLength = (long) (steps + 2) * lanes + 2L * lanes;
+        long distributionLength = 5L * (steps + 2);
+        if (Math.max(latticeLength, distributionLength) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many steps and strikes for a single ladder");
+        }
+        double[] buffer = workspace.values((int) Math.max(latticeLength, distributionLength));
+
+        long nodesEvaluated = 0;
+        if (lanes < strikes) {
+            priceFromTerminalDistribution(model, strikePrices, isCall, isAmerican, callsExercisedEarly, prices, buffer);
+            nodesEvaluated += steps + 1;
+        }
+        if (lanes > 0) {
+            nodesEvaluated += priceAmericanLanes(model, strikePrices, isCall, callsExercisedEarly, lanes, prices, buffer);
+        }
+        workspace.setNodesEvaluated(nodesEvaluated);
+    }
+
+    /**
+     * Prices the options without early exercise as discounted expectations over the terminal row.
+     * <p>
+     * The binomial weights are built outwards from the most likely node, so they never underflow in the middle
+     * of the distribution, and then normalised. With cumulative sums of w and w S from the bottom of the row and
+     * from the top, a put is {@code K sum(w) - sum(w S)} over the nodes below the strike and a call the mirror
+     * image above it; summing each side from its own end avoids cancellation for far out-of-the-money strikes.
+     */
+    private static void priceFromTerminalDistribution(LatticeModel model, double[] strikePrices, boolean[] isCall,
+                                                      boolean isAmerican, boolean callsExercisedEarly,
+                                                      double[] prices, double[] buffer) {
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double oddsUp = q / (1 - q);
+
+        // buffer[i] is the weight of node i; the four cumulative sums have n + 2 entries each.
+        int nodes = steps + 1;
+        int belowWeight = nodes;
+        int belowValue = belowWeight + nodes + 1;
+        int aboveWeight = belowValue + nodes + 1;
+        int aboveValue = aboveWeight + nodes + 1;
+
+        int mode = (int) Math.min(steps, Math.floor((steps + 1) * q));
+        buffer[mode] = 1;
+        double total = 1;
+        for (int i = mode; i < steps; i++) {
+            double weight = buffer[i] * (steps - i) / (i + 1) * oddsUp;
+            buffer[i + 1] = weight < NEGLIGIBLE_WEIGHT ? 0 : weight;
+            total += buffer[i + 1];
+        }
+        for (int i = mode; i > 0; i--) {
+            double weight = buffer[i] * i / (steps - i + 1) / oddsUp;
+            buffer[i - 1] = weight < NEGLIGIBLE_WEIGHT ? 0 : weight;
+            total += buffer[i - 1];
+        }
+        double scale = Math.pow(1 / (1 + model.getInterestRate()), steps) / total;
+
+        // belowX[i] sums nodes 0..i-1; aboveX[i] sums nodes i..n.
+        buffer[belowWeight] = 0;
+        buffer[belowValue] = 0;
+        for (int i = 0; i < nodes; i++) {
+            buffer[i] *= scale;
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            buffer[belowWeight + i + 1] = buffer[belowWeight + i] + buffer[i];
+            buffer[belowValue + i + 1] = buffer[belowValue + i] + buffer[i] * stockPrice;
+        }
+        buffer[aboveWeight + nodes] = 0;
+        buffer[aboveValue + nodes] = 0;
+        for (int i = steps; i >= 0; i--) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            buffer[aboveWeight + i] = buffer[aboveWeight + i + 1] + buffer[i];
+            buffer[aboveValue + i] = buffer[aboveValue + i + 1] + buffer[i] * stockPrice;
+        }
+
+        for (int k = 0; k < strikePrices.length; k++) {
+            if (isAmerican && (!isCall[k] || callsExercisedEarly)) {
+                continue;
+            }
+            double strikePrice = strikePrices[k];
+            int below = nodesBelow(strikePrice, initialPrice, upFactor, downFactor, steps);
+            // A node exactly at the strike pays nothing either way, so it may sit on either side.
+            double price = isCall[k]
+                    ? buffer[aboveValue + below] - strikePrice * buffer[aboveWeight + below]
+                    : strikePrice * buffer[belowWeight + below] - buffer[belowValue + below];
+            prices[k] = Math.max(price, 0);
+        }
+    }
+
+    /**
+     * @return The number of terminal nodes whose stock price is below {@code strikePrice}.
+     */
+    private static int nodesBelow(double strikePrice, double initialPrice, double upFactor, double downFactor,
+                                  int steps) {
+        int low = 0;
+        int high = steps + 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double stockPrice = initialPrice * Math.pow(upFactor, middle) * Math.pow(downFactor, steps - middle);
+            if (stockPrice < strikePrice) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * One backward pass for all options that may be exercised early, with their values interleaved per node.
+     * <p>
+     * The region bookkeeping of {@link BinomialEngine} carries over to the whole ladder when every lane is a put
+     * and r >= 0: a node is skipped as exercised when its successors are exercised for every strike, and as
+     * worthless when it lies above the highest strike and its successors are zero for every strike.
+     *
+     * @return The number of nodes visited, counting each node once for all lanes.
+     */
+    private static long priceAmericanLanes(LatticeModel model, double[] strikePrices, boolean[] isCall,
+                                           boolean callsExercisedEarly, int lanes, double[] prices,
+                                           double[] buffer) {
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        double up = q * discount;
+        double down = (1 - q) * discount;
+        double upOverDown = upFactor / downFactor;
+
+        // Option values for nodes 0..n come first; then the sign (+1 call, -1 put) and strike of each lane.
+        int signs = (steps + 2) * lanes;
+        int strikes = signs + lanes;
+        double highestStrike = 0;
+        boolean allPuts = true;
+        int lane = 0;
+        for (int k = 0; k < strikePrices.length; k++) {
+            if (!isCall[k] || callsExercisedEarly) {
+                buffer[signs + lane] = isCall[k] ? 1 : -1;
+                buffer[strikes + lane] = strikePrices[k];
+                highestStrike = Math.max(highestStrike, strikePrices[k]);
+                allPuts &= !isCall[k];
+                lane++;
+            }
+        }
+        boolean skipRegions = allPuts && model.getInterestRate() >= 0 && downFactor < 1;
+
+        // Terminal row: nodes 0..exercised-1 are in the money for every strike, nodes from zeroFrom on for none.
+        int exercised = 0;
+        int zeroFrom = 0;
+        boolean allInTheMoney = true;
+        for (int i = 0; i <= steps; i++) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            int node = i * lanes;
+            boolean anyInTheMoney = false;
+            for (int l = 0; l < lanes; l++) {
+                double payoff = Math.max(buffer[signs + l] * (stockPrice - buffer[strikes + l]), 0);
+                buffer[node + l] = payoff;
+                allInTheMoney &= payoff > 0;
+                anyInTheMoney |= payoff > 0;
+            }
+            if (allInTheMoney) {
+                exercised = i + 1;
+            }
+            if (anyInTheMoney) {
+                zeroFrom = i + 1;
+            }
+        }
+        if (!skipRegions) {
+            exercised = 0;
+            zeroFrom = steps + 1;
+        }
+
+        double logUpOverDown = Math.log(upOverDown);
+        double logDown = Math.log(downFactor);
+        double logHighestStrike = Math.log(highestStrike / initialPrice);
+        long nodesEvaluated = 0;
+        for (int step = steps - 1; step >= 0; step--) {
+            int low = 0;
+            int high = step;
+            if (skipRegions) {
+                low = Math.min(Math.max(0, exercised - 1), step + 1);
+                int worthless = BinomialEngine.firstWorthlessNode(step, logHighestStrike, logDown, logUpOverDown);
+                high = Math.min(step, Math.max(zeroFrom, worthless) - 1);
+                if (low > high) {
+                    exercised = low;
+                    zeroFrom = low;
+                    continue;
+                }
+                if (low < exercised) {
+                    // The one exercised successor the band reads is not stored; write its payoff.
+                    double stockPrice = initialPrice * Math.pow(downFactor, step + 1) * Math.pow(upOverDown, low);
+                    int node = low * lanes;
+                    for (int l = 0; l < lanes; l++) {
+                        buffer[node + l] = buffer[strikes + l] - stockPrice;
+                    }
+                }
+            }
+
+            double stockPrice = initialPrice * Math.pow(downFactor, step) * Math.pow(upOverDown, low);
+            int firstLive = -1;
+            int lastLive = -1;
+            for (int i = low; i <= high; i++) {
+                int node = i * lanes;
+                int upNode = node + lanes;
+                boolean allExercised = true;
+                boolean allZero = true;
+                for (int l = 0; l < lanes; l++) {
+                    double value = up * buffer[upNode + l] + down * buffer[node + l];
+                    double exercise = buffer[signs + l] * (stockPrice - buffer[strikes + l]);
+                    allExercised &= exercise > 0 && exercise >= value;
+                    value = Math.max(value, exercise);
+                    value = value < NEGLIGIBLE_VALUE ? 0 : value;
+                    allZero &= value == 0;
+                    buffer[node + l] = value;
+                }
+                if (!allExercised && firstLive < 0) {
+                    firstLive = i;
+                }
+                if (!allZero) {
+                    lastLive = i;
+                }
+                stockPrice *= upOverDown;
+            }
+            nodesEvaluated += high - low + 1;
+
+            if (skipRegions) {
+                exercised = firstLive < 0 ? high + 1 : firstLive;
+                zeroFrom = Math.max(lastLive + 1, exercised);
+            }
+        }
+
+        boolean rootExercised = skipRegions && exercised > 0;
+        lane = 0;
+        for (int k = 0; k < strikePrices.length; k++) {
+            if (!isCall[k] || callsExercisedEarly) {
+                prices[k] = rootExercised ? buffer[strikes + lane] - initialPrice : buffer[lane];
+                lane++;
+            }
+        }
+        return nodesEvaluated;
+    }
+}
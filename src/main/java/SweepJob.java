@@ -0,0 +1,154 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class SweepJob {
+    /**
+     * Identifies the pricing code of {@link ShardWorker} in stored results; change it whenever that code's
+     * results change.
+     */
+    public static final String ENGINE_VERSION = "BinomialEngine-CRR/1";
+
+    private final double[] strikePrices;
+    private final boolean[] isCall;
+    private final boolean[] isAmerican;
+    private final int[] stepCounts;
+    private final double[] initialPrices;
+    private final double[] volatilities;
+    private final double interestRate;
+    private final double maturity;
+
+    /**
+     * A pricing sweep over contracts x step counts x market scenarios. Every item of the sweep is identified by its
+     * index, so a shard of work is just an index range and workers rebuild the parameters themselves.
+     * <p>
+     * Items are ordered by contract, then step count, then scenario; scenario s combines
+     * {@code initialPrices[s]} with {@code volatilities[s]}.
+     *
+     * @param strikePrices  Strike price of each contract.
+     * @param isCall        True for Call option, False for Put option, per contract.
+     * @param isAmerican    True for American exercise, False for European exercise, per contract.
+     * @param stepCounts    Lattice step counts to price every contract with.
+     * @param initialPrices Initial asset price of each scenario.
+     * @param volatilities  Annualised volatility of each scenario.
+     * @param interestRate  Continuously compounded risk-free rate per year.
+     * @param maturity      Time to maturity in years.
+     */
+    public SweepJob(double[] strikePrices, boolean[] isCall, boolean[] isAmerican, int[] stepCounts,
+                    double[] initialPrices, double[] volatilities, double interestRate, double maturity) {
+        if (isCall.length != strikePrices.length || isAmerican.length != strikePrices.length) {
+            throw new IllegalArgumentException("Contract arrays must have the same length");
+        }
+        if (volatilities.length != initialPrices.length) {
+            throw new IllegalArgumentException("Scenario arrays must have the same length");
+        }
+        if (strikePrices.length == 0 || stepCounts.length == 0 || initialPrices.length == 0) {
+            throw new IllegalArgumentException("A sweep needs at least one contract, step count and scenario");
+        }
+        this.strikePrices = strikePrices.clone();
+        this.isCall = isCall.clone();
+        this.isAmerican = isAmerican.clone();
+        this.stepCounts = stepCounts.clone();
+        this.initialPrices = initialPrices.clone();
+        this.volatilities = volatilities.clone();
+        this.interestRate = interestRate;
+        this.maturity = maturity;
+    }
+
+    public long size() {
+        return (long) strikePrices.length * stepCounts.length * initialPrices.length;
+    }
+
+    /**
+     * Prices one item of the sweep on a Cox-Ross-Rubinstein lattice.
+     */
+    public double price(long index, PricingEngine engine, PricingWorkspace workspace) {
+        int contract = contract(index);
+        int scenario = scenario(index);
+        LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN,
+                initialPrices[scenario], strikePrices[contract], interestRate, volatilities[scenario], maturity,
+                stepCounts[steps(index)]).toModel(initialPrices[scenario]);
+        return engine.price(new OptionContract(strikePrices[contract], isCall[contract], isAmerican[contract]),
+                model, workspace);
+    }
+
+    /**
+     * @return The key of item {@code index} in a {@link ResultStore}.
+     */
+    public ResultStore.Key storeKey(long index) {
+        int contract = contract(index);
+        int scenario = scenario(index);
+        return ResultStore.key(ENGINE_VERSION, initialPrices[scenario], strikePrices[contract], interestRate,
+                volatilities[scenario], maturity, stepCounts[steps(index)], isCall[contract] ? 1 : 0,
+                isAmerican[contract] ? 1 : 0);
+    }
+
+    /**
+     * @return The CSV columns describing item {@code index}, matching {@link #CSV_HEADER}.
+     */
+    public String describe(long index) {
+        int contract = contract(index);
+        int scenario = scenario(index);
+        return index + "," + strikePrices[contract] + "," + isCall[contract] + "," + isAmerican[contract] + ","
+                + stepCounts[steps(index)] + "," + initialPrices[scenario] + "," + volatilities[scenario];
+    }
+
+    public static final String CSV_HEADER = "Index,Strike,IsCall,IsAmerican,Steps,InitialPrice,Volatility";
+
+    private int contract(long index) {
+        return (int) (index / ((long) stepCounts.length * initialPrices.length));
+    }
+
+    private int steps(long index) {
+        return (int) (index / initialPrices.length % stepCounts.length);
+    }
+
+    private int scenario(long index) {
+        return (int) (index % initialPrices.length);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(strikePrices.length);
+        for (int i = 0; i < strikePrices.length; i++) {
+            out.writeDouble(strikePrices[i]);
+            out.writeBoolean(isCall[i]);
+            out.writeBoolean(isAmerican[i]);
+        }
+        out.writeInt(stepCounts.length);
+        for (int steps : stepCounts) {
+            out.writeInt(steps);
+        }
+        out.writeInt(initialPrices.length);
+        for (int i = 0; i < initialPrices.length; i++) {
+            out.writeDouble(initialPrices[i]);
+            out.writeDouble(volatilities[i]);
+        }
+        out.writeDouble(interestRate);
+        out.writeDouble(maturity);
+    }
+
+    static SweepJob read(DataInputStream in) throws IOException {
+        int contracts = in.readInt();
+        double[] strikePrices = new double[contracts];
+        boolean[] isCall = new boolean[contracts];
+        boolean[] isAmerican = new boolean[contracts];
+        for (int i = 0; i < contracts; i++) {
+            strikePrices[i] = in.readDouble();
+            isCall[i] = in.readBoolean();
+            isAmerican[i] = in.readBoolean();
+        }
+        int[] stepCounts = new int[in.readInt()];
+        for (int i = 0; i < stepCounts.length; i++) {
+            stepCounts[i] = in.readInt();
+        }
+        int scenarios = in.readInt();
+        double[] initialPrices = new double[scenarios];
+        double[] volatilities = new double[scenarios];
+        for (int i = 0; i < scenarios; i++) {
+            initialPrices[i] = in.readDouble();
+            volatilities[i] = in.readDouble();
+        }
+        return new SweepJob(strikePrices, isCall, isAmerican, stepCounts, initialPrices, volatilities,
+                in.readDouble(), in.readDouble());
+    }
+}
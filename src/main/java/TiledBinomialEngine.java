@@ -0,0 +1,110 @@
+public class TiledBinomialEngine implements PricingEngine {
+    /**
+     * Default number of nodes per tile: 32 KB of values, which stay in the L1 or L2 cache while the tile
+     * advances.
+     */
+    public static final int DEFAULT_TILE_NODES = 4096;
+    /**
+     * Default number of time steps a tile advances per pass.
+     */
+    public static final int DEFAULT_TILE_STEPS = 64;
+
+    private static final PricingEngine LOG_SPACE_ENGINE = new LogSpaceBinomialEngine();
+
+    private final int tileNodes;
+    private final int tileSteps;
+
+    public TiledBinomialEngine() {
+        this(DEFAULT_TILE_NODES, DEFAULT_TILE_STEPS);
+    }
+
+    /**
+     * @param tileNodes Width of a tile in nodes of the row it starts from.
+     * @param tileSteps Number of time steps a tile advances before moving on to the next nodes.
+     */
+    public TiledBinomialEngine(int tileNodes, int tileSteps) {
+        if (tileNodes <= 0 || tileSteps <= 0) {
+            throw new IllegalArgumentException("Tile width and depth must be positive");
+        }
+        this.tileNodes = tileNodes;
+        this.tileSteps = tileSteps;
+    }
+
+    /**
+     * Backward induction on a recombining binomial tree with cache-blocked temporal tiling.
+     * <p>
+     * The straightforward loop of {@link BinomialEngine} sweeps the whole row once per time step, so once a
+     * row outgrows the cache every step streams it from memory again. Here the rows are processed in blocks of
+     * {@code tileSteps} time steps, and each block in tiles of {@code tileNodes} nodes of its first row. Node i
+     * only depends on nodes i and i + 1 of the row after it, so a tile covering nodes [a, b) can advance t steps
+     * over nodes [a - t, b - t): the nodes left of a were brought up to date by the previous tile, the skew
+     * keeps every input in place, and the tile's working set stays in the cache for all of its steps. Memory
+     * traffic falls by about the tile depth.
+     * <p>
+     * Every node is computed by the same stencil from the same inputs as the row-by-row loop of
+     * {@code new BinomialEngine(false)}, and American stock prices are carried from tile to tile by the same
+     * repeated multiplication, so prices are bit-for-bit identical. Trees too deep for direct powers of u and d
+     * are priced by a {@link LogSpaceBinomialEngine}. Barrier contracts are not supported.
+     */
+    @Override
+    public double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Tiled lattices do not support barrier options");
+        }
+        if (LogSpaceBinomialEngine.needsLogSpace(model)) {
+            return LOG_SPACE_ENGINE.price(contract, model, workspace);
+        }
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        double upOverDown = upFactor / downFactor;
+        boolean isAmerican = contract.isAmerican();
+
+        double[] optionValues = workspace.values(steps + 1);
+        // Stock price of the next node to update in each row of the current block (American only).
+        double[] nextStockPrice = workspace.scratch(tileSteps + 1);
+
+        // Compute terminal payoffs.
+        for (int i = 0; i <= steps; i++) {
+            double stockPrice = initialPrice * Math.pow(upFactor, i) * Math.pow(downFactor, steps - i);
+            optionValues[i] = contract.payoff(stockPrice);
+        }
+
+        // Each block starts from row `top` and brings the values back to row top - depth.
+        for (int top = steps; top > 0; top -= tileSteps) {
+            int depth = Math.min(tileSteps, top);
+            if (isAmerican) {
+                for (int t = 1; t <= depth; t++) {
+                    nextStockPrice[t] = initialPrice * Math.pow(downFactor, top - t);
+                }
+            }
+            for (int start = 0; start <= top; start += tileNodes) {
+                int end = Math.min(start + tileNodes, top + 1);
+                for (int t = 1; t <= depth; t++) {
+                    int from = Math.max(0, start - t);
+                    int to = end - t - 1;
+                    if (isAmerican) {
+                        nextStockPrice[t] = BinomialEngine.backwardRowAmerican(optionValues, from, to, q, discount,
+                                contract, nextStockPrice[t], upOverDown);
+                    } else {
+                        BinomialEngine.backwardRow(optionValues, from, to, q, discount);
+                    }
+                }
+            }
+        }
+
+        workspace.setNodesEvaluated((long) steps * (steps + 1) / 2);
+        return optionValues[0];
+    }
+
+    public int getTileNodes() {
+        return tileNodes;
+    }
+
+    public int getTileSteps() {
+        return tileSteps;
+    }
+}
@@ -0,0 +1,281 @@
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class TreeHeatmap {
+    /**
+     * How the values of the nodes falling into one pixel are combined.
+     */
+    public enum Statistic {
+        MIN, MEAN, MAX
+    }
+
+    // Pixel columns below which a range is aggregated by one task.
+    private static final int TASK_COLUMNS = 32;
+    private static final int BACKGROUND = 0xffffff;
+
+    private final double[][] data;
+    private final double fromStep;
+    private final double toStep;
+    private final double fromY;
+    private final double toY;
+    private final int width;
+    private final int height;
+    private final Statistic statistic;
+    private final double[] aggregates;
+    private final int[] counts;
+    private double lowest = Double.POSITIVE_INFINITY;
+    private double highest = Double.NEGATIVE_INFINITY;
+    private final BufferedImage image;
+
+    /**
+     * Rasterises a window of a full tree into a fixed-size image, whatever the number of steps.
+     * <p>
+     * Node j of row t is laid out as in {@link BinomialTreePanel}: x = t and y = (t - j) + (rows - 1 - t) / 2,
+     * so the highest price of each row is at the top. Each node covers the cell [t, t + 1) x [y - 1/2, y + 1/2)
+     * of that plane. Zoomed in, every pixel the cell overlaps takes the node's value into its statistic; zoomed
+     * out, a cell smaller than a pixel counts once, in the pixel holding its top-left corner, and the runs of
+     * nodes sharing a pixel are folded in one pass. Only the rows and nodes inside the window are visited.
+     * Pixel columns are split across the common fork-join pool, each task owning a range of columns, so no pixel
+     * is written by two threads. Statistics are coloured on a blue-to-red scale between their lowest and highest
+     * value in the window; pixels no node reaches are left white.
+     *
+     * @param data      Values of every node, row t having t + 1 entries, such as option values or stock prices.
+     * @param fromStep  Left edge of the window, in steps.
+     * @param toStep    Right edge of the window, in steps; greater than {@code fromStep}.
+     * @param fromY     Top edge of the window, in node rows.
+     * @param toY       Bottom edge of the window, in node rows; greater than {@code fromY}.
+     * @param width     Width of the image in pixels.
+     * @param height    Height of the image in pixels.
+     * @param statistic How the nodes of a pixel are combined.
+     */
+    public TreeHeatmap(double[][] data, double fromStep, double toStep, double fromY, double toY, int width,
+                       int height, Statistic statistic) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive");
+        }
+        if (!(toStep > fromStep) || !(toY > fromY)) {
+            throw new IllegalArgumentException("Window must not be empty");
+        }
+        this.data = data;
+        this.fromStep = fromStep;
+        this.toStep = toStep;
+        this.fromY = fromY;
+        this.toY = toY;
+        this.width = width;
+        this.height = height;
+        this.statistic = statistic;
+        this.aggregates = new double[width * height];
+        this.counts = new int[width * height];
+
+        ForkJoinPool.commonPool().invoke(new ColumnRange(this, 0, width));
+        for (int pixel = 0; pixel < aggregates.length; pixel++) {
+            if (counts[pixel] > 0) {
+                if (statistic == Statistic.MEAN) {
+                    aggregates[pixel] /= counts[pixel];
+                }
+                lowest = Math.min(lowest, aggregates[pixel]);
+                highest = Math.max(highest, aggregates[pixel]);
+            }
+        }
+
+        int[] pixels = new int[width * height];
+        double range = highest - lowest;
+        for (int pixel = 0; pixel < pixels.length; pixel++) {
+            if (counts[pixel] == 0) {
+                pixels[pixel] = BACKGROUND;
+            } else {
+                pixels[pixel] = colour(range > 0 ? (aggregates[pixel] - lowest) / range : 0.5);
+            }
+        }
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+    }
+
+    /**
+     * @return The vertical position of node {@code index} (up moves) of row {@code step} in a tree of
+     * {@code rows} rows, in node rows from the top, as used by the window.
+     */
+    public static double nodeY(int rows, int step, int index) {
+        return (step - index) + (rows - 1 - step) / 2.0;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * @return The lowest statistic of any pixel, or +Infinity if the window holds no node.
+     */
+    public double getLowest() {
+        return lowest;
+    }
+
+    /**
+     * @return The highest statistic of any pixel, or -Infinity if the window holds no node.
+     */
+    public double getHighest() {
+        return highest;
+    }
+
+    /**
+     * Aggregates the nodes whose cells overlap pixel columns [fromColumn, toColumn), writing only those columns.
+     */
+    private void aggregateColumns(int fromColumn, int toColumn) {
+        double stepsPerColumn = (toStep - fromStep) / width;
+        double pixelsPerRow = height / (toY - fromY);
+        int rows = data.length;
+        int firstStep = Math.max(0, (int) Math.floor(fromStep + fromColumn * stepsPerColumn));
+        int lastStep = Math.min(rows - 1, (int) Math.ceil(fromStep + toColumn * stepsPerColumn));
+        boolean mean = statistic == Statistic.MEAN;
+        boolean max = statistic == Statistic.MAX;
+
+        for (int step = firstStep; step <= lastStep; step++) {
+            // A cell narrower than a pixel still takes the pixel it starts in.
+            int left = (int) Math.floor((step - fromStep) / stepsPerColumn);
+            int right = Math.max(left + 1, (int) Math.floor((step + 1 - fromStep) / stepsPerColumn));
+            left = Math.max(fromColumn, left);
+            right = Math.min(toColumn, right);
+            if (left >= right) {
+                continue;
+            }
+            // Nodes whose cells [y - 1/2, y + 1/2) meet [fromY, toY), with y = centre - j.
+            double centre = step + (rows - 1 - step) / 2.0;
+            int lowIndex = Math.max(0, (int) Math.ceil(centre - toY - 0.5));
+            int highIndex = Math.min(step, (int) Math.floor(centre - fromY + 0.5));
+            double[] row = data[step];
+
+            if (pixelsPerRow > 1) {
+                // Zoomed in: each node fills a block of pixel rows.
+                for (int j = lowIndex; j <= highIndex; j++) {
+                    double value = row[j];
+                    if (Double.isNaN(value)) {
+                        continue;
+                    }
+                    double y = centre - j;
+                    int top = (int) Math.floor((y - 0.5 - fromY) * pixelsPerRow);
+                    int bottom = Math.min(height, (int) Math.floor((y + 0.5 - fromY) * pixelsPerRow));
+                    for (int py = Math.max(0, top); py < bottom; py++) {
+                        accumulate(py, left, right, value, 1);
+                    }
+                }
+                continue;
+            }
+
+            // Zoomed out: a cell is at most one pixel high, so each node lands in the pixel row its top edge is in.
+            // The run of nodes sharing a pixel row is found from the row's edges, combined in one pass and
+            // written once.
+            double topEdge = centre - 0.5 - fromY;
+            int j = highIndex;
+            while (j >= lowIndex) {
+                int py = Math.max(0, Math.min(height - 1, (int) Math.floor((topEdge - j) * pixelsPerRow)));
+                int runEnd = py == height - 1 ? lowIndex
+                        : Math.max(lowIndex, Math.min(j, (int) Math.floor(topEdge - (py + 1) / pixelsPerRow) + 1));
+                double value;
+                int count = 0;
+                if (mean) {
+                    value = 0;
+                    for (int k = runEnd; k <= j; k++) {
+                        double v = row[k];
+                        if (v == v) {
+                            value += v;
+                            count++;
+                        }
+                    }
+                } else if (max) {
+                    value = Double.NEGATIVE_INFINITY;
+                    for (int k = runEnd; k <= j; k++) {
+                        double v = row[k];
+                        if (v == v) {
+                            value = Math.max(value, v);
+                            count++;
+                        }
+                    }
+                } else {
+                    value = Double.POSITIVE_INFINITY;
+                    for (int k = runEnd; k <= j; k++) {
+                        double v = row[k];
+                        if (v == v) {
+                            value = Math.min(value, v);
+                            count++;
+                        }
+                    }
+                }
+                if (count > 0) {
+                    accumulate(py, left, right, value, count);
+                }
+                j = runEnd - 1;
+            }
+        }
+    }
+
+    /**
+     * Folds {@code count} nodes, already combined into {@code value}, into pixels [left, right) of row {@code py}.
+     */
+    private void accumulate(int py, int left, int right, double value, int count) {
+        int offset = py * width;
+        for (int px = left; px < right; px++) {
+            int pixel = offset + px;
+            aggregates[pixel] = counts[pixel] == 0 ? value : combine(aggregates[pixel], value);
+            counts[pixel] += count;
+        }
+    }
+
+    /**
+     * @return Two partial statistics combined: the sum for the mean, otherwise the smaller or larger.
+     */
+    private double combine(double a, double b) {
+        switch (statistic) {
+            case MEAN:
+                return a + b;
+            case MAX:
+                return Math.max(a, b);
+            default:
+                return Math.min(a, b);
+        }
+    }
+
+    /**
+     * @return Blue (0) through cyan, green and yellow to red (1).
+     */
+    private static int colour(double t) {
+        double position = Math.max(0, Math.min(1, t)) * 4;
+        int segment = Math.min(3, (int) position);
+        int ramp = (int) Math.round((position - segment) * 255);
+        switch (segment) {
+            case 0:
+                return ramp << 8 | 255;
+            case 1:
+                return 255 << 8 | (255 - ramp);
+            case 2:
+                return ramp << 16 | 255 << 8;
+            default:
+                return 255 << 16 | (255 - ramp) << 8;
+        }
+    }
+
+    /**
+     * Aggregates pixel columns [from, to), splitting the range across the pool.
+     */
+    private static final class ColumnRange extends RecursiveAction {
+        private final TreeHeatmap heatmap;
+        private final int from;
+        private final int to;
+
+        private ColumnRange(TreeHeatmap heatmap, int from, int to) {
+            this.heatmap = heatmap;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_COLUMNS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ColumnRange(heatmap, from, middle), new ColumnRange(heatmap, middle, to));
+            } else {
+                heatmap.aggregateColumns(from, to);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+public class TreeHeatmapPanel extends JPanel implements Scrollable {
+    /**
+     * Notified when a click on a zoomed-in overview asks for the detailed view of a node.
+     */
+    public interface NodeSelectionListener {
+        /**
+         * @param step Row of the node.
+         * @param node Places from the top of the row, as drawn by {@link BinomialTreePanel}.
+         */
+        void nodeSelected(int step, int node);
+    }
+
+    // Once the window is this few steps wide, a click opens the detailed view instead of zooming further.
+    private static final int DETAIL_STEPS = 32;
+    private static final double ZOOM_FACTOR = 2;
+
+    private double[][] data;
+    private int rows;
+    private double fromStep;
+    private double toStep;
+    private double fromY;
+    private double toY;
+    private TreeHeatmap.Statistic statistic = TreeHeatmap.Statistic.MEAN;
+    private NodeSelectionListener nodeSelectionListener;
+
+    // Bumped on every request so that a slower, older rendering never replaces a newer one.
+    private int generation;
+    private TreeHeatmap heatmap;
+    // Why the last rendering failed, shown in place of the heatmap; null after a success.
+    private String renderError;
+
+    /**
+     * Overview of a whole tree as a fixed-size {@link TreeHeatmap}, whatever the number of steps. The heatmap is
+     * rebuilt off the event dispatch thread whenever the data, window, statistic or panel size changes. A left
+     * click zooms in on the clicked point and a right click zooms back out; once the window is narrow enough to
+     * read, a left click selects the node under the pointer instead.
+     */
+    public TreeHeatmapPanel() {
+        setPreferredSize(new Dimension(800, 600));
+        setBackground(Color.WHITE);
+
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                render();
+            }
+        });
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (data == null || getWidth() == 0 || getHeight() == 0) return;
+                double step = fromStep + (toStep - fromStep) * e.getX() / getWidth();
+                double y = fromY + (toY - fromY) * e.getY() / getHeight();
+                if (SwingUtilities.isRightMouseButton(e)) {
+                    zoom(step, y, ZOOM_FACTOR);
+                } else if (toStep - fromStep <= DETAIL_STEPS) {
+                    selectNode(step, y);
+                } else {
+                    zoom(step, y, 1 / ZOOM_FACTOR);
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows a new tree, zoomed out to the whole triangle.
+     *
+     * @param data Values of every node, row t having t + 1 entries.
+     */
+    public void setData(double[][] data) {
+        this.data = data;
+        this.rows = data == null ? 0 : data.length;
+        resetWindow();
+        render();
+    }
+
+    /**
+     * Shows other values of the same tree, such as stock prices instead of option values, keeping the window.
+     *
+     * @param data Values of every node, with as many rows as the tree already shown.
+     */
+    public void replaceData(double[][] data) {
+        if (this.data == null || data == null || data.length != rows) {
+            setData(data);
+            return;
+        }
+        this.data = data;
+        render();
+    }
+
+    public void setStatistic(TreeHeatmap.Statistic statistic) {
+        this.statistic = statistic;
+        render();
+    }
+
+    public void setNodeSelectionListener(NodeSelectionListener nodeSelectionListener) {
+        this.nodeSelectionListener = nodeSelectionListener;
+    }
+
+    private void resetWindow() {
+        fromStep = 0;
+        toStep = Math.max(1, rows);
+        fromY = -0.5;
+        toY = Math.max(1, rows) - 0.5;
+    }
+
+    /**
+     * Scales the window about the given point, keeping it inside the whole triangle.
+     */
+    private void zoom(double step, double y, double factor) {
+        double stepSpan = Math.min(rows, (toStep - fromStep) * factor);
+        double ySpan = Math.min(rows, (toY - fromY) * factor);
+        fromStep = Math.max(0, Math.min(rows - stepSpan, step - stepSpan / 2));
+        toStep = fromStep + stepSpan;
+        fromY = Math.max(-0.5, Math.min(rows - 0.5 - ySpan, y - ySpan / 2));
+        toY = fromY + ySpan;
+        render();
+    }
+
+    private void selectNode(double x, double y) {
+        if (nodeSelectionListener == null) return;
+        int step = Math.max(0, Math.min(rows - 1, (int) Math.floor(x)));
+        long node = Math.round(y - (rows - 1 - step) / 2.0);
+        if (node < 0 || node > step) return;
+        nodeSelectionListener.nodeSelected(step, (int) node);
+    }
+
+    private void render() {
+        final int requested = ++generation;
+        final int width = getWidth();
+        final int height = getHeight();
+        if (data == null || width <= 0 || height <= 0) {
+            heatmap = null;
+            renderError = null;
+            repaint();
+            return;
+        }
+        final double[][] data = this.data;
+        final double fromStep = this.fromStep;
+        final double toStep = this.toStep;
+        final double fromY = this.fromY;
+        final double toY = this.toY;
+        final TreeHeatmap.Statistic statistic = this.statistic;
+
+        new SwingWorker<TreeHeatmap, Void>() {
+            @Override
+            protected TreeHeatmap doInBackground() {
+                return new TreeHeatmap(data, fromStep, toStep, fromY, toY, width, height, statistic);
+            }
+
+            @Override
+            protected void done() {
+                if (requested != generation) return;
+                try {
+                    heatmap = get();
+                    renderError = null;
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    heatmap = null;
+                    renderError = "Error rendering overview: " + cause;
+                }
+                repaint();
+            }
+        }.execute();
+    }
+
+    // Inside a scroll pane the overview always fills the viewport, so resizing the window re-renders it.
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return 1;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return 1;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return true;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (renderError != null) {
+            g.setColor(Color.RED);
+            g.drawString(renderError, 10, 20);
+            return;
+        }
+        if (heatmap == null) return;
+
+        Graphics2D g2 = (Graphics2D) g;
+        BufferedImage image = heatmap.getImage();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+
+        // Legend: window and colour scale
+        String legend = String.format("Steps %d-%d of %d", (int) Math.floor(fromStep), (int) Math.ceil(toStep) - 1,
+                rows - 1);
+        if (heatmap.getLowest() <= heatmap.getHighest()) {
+            legend += String.format("   %s $%.2f (blue) to $%.2f (red)", statistic.name().toLowerCase(),
+                    heatmap.getLowest(), heatmap.getHighest());
+        }
+        String hint = toStep - fromStep <= DETAIL_STEPS
+                ? "Click a node for details, right click to zoom out"
+                : "Click to zoom in, right click to zoom out";
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        FontMetrics fm = g2.getFontMetrics();
+        int textWidth = Math.max(fm.stringWidth(legend), fm.stringWidth(hint));
+        g2.setColor(new Color(255, 255, 255, 200));
+        g2.fillRect(5, 5, textWidth + 10, 2 * fm.getHeight() + 6);
+        g2.setColor(Color.BLACK);
+        g2.drawString(legend, 10, 8 + fm.getAscent());
+        g2.drawString(hint, 10, 8 + fm.getHeight() + fm.getAscent());
+    }
+}
@@ -0,0 +1,490 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class TreeSnapshot implements Closeable {
+    private static final long MAGIC = 0x4254524545534e31L;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    // Header fields.
+    private static final int STEPS_OFFSET = 12;
+    private static final int INDEX_OFFSET = 16;
+    /**
+     * Rows are gathered into a block until it holds at least this many values; a longer row is a block alone.
+     */
+    static final int BLOCK_VALUES = 1 << 16;
+
+    private final FileChannel channel;
+    private final int steps;
+    // Per block.
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockValues;
+    // Per step: the block holding the row and the position of its first value in the decoded block.
+    private final int[] rowBlocks;
+    private final int[] rowPositions;
+    // Residuals of the last inflated block, so that reading neighbouring rows inflates it only once.
+    private long[] decoded = new long[0];
+    private int decodedBlock = -1;
+    private byte[] compressed = new byte[0];
+    private byte[] shuffled = new byte[0];
+    private final Inflater inflater = new Inflater();
+
+    /**
+     * Opens a snapshot written by {@link Writer}, reading only its header and row index; rows are decoded on
+     * demand by {@link #readRow}, one block at a time. A snapshot is not thread-safe.
+     *
+     * @param file Snapshot file.
+     */
+    public TreeSnapshot(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, HEADER_BYTES);
+            if (header.getLong(0) != MAGIC || header.getInt(8) != FORMAT_VERSION) {
+                throw new IOException("Not a tree snapshot: " + file);
+            }
+            steps = header.getInt(STEPS_OFFSET);
+            long indexOffset = header.getLong(INDEX_OFFSET);
+            if (indexOffset == 0) {
+                throw new IOException("Snapshot was not closed: " + file);
+            }
+            int blocks = read(indexOffset, 4).getInt(0);
+            ByteBuffer index = read(indexOffset + 4, blocks * 16L + (steps + 1) * 8L);
+            blockOffsets = new long[blocks];
+            blockLengths = new int[blocks];
+            blockValues = new int[blocks];
+            for (int block = 0; block < blocks; block++) {
+                blockOffsets[block] = index.getLong();
+                blockLengths[block] = index.getInt();
+                blockValues[block] = index.getInt();
+            }
+            rowBlocks = new int[steps + 1];
+            rowPositions = new int[steps + 1];
+            for (int step = 0; step <= steps; step++) {
+                rowBlocks[step] = index.getInt();
+                rowPositions[step] = index.getInt();
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Saves a full tree, such as the one kept by {@link MultiStepBinomialTree}.
+     *
+     * @param file         Snapshot file; replaced if it exists.
+     * @param optionValues Option values, row i having i + 1 entries.
+     * @param stockPrices  Stock prices, shaped like {@code optionValues}.
+     */
+    public static void write(Path file, double[][] optionValues, double[][] stockPrices) throws IOException {
+        if (optionValues.length == 0 || stockPrices.length != optionValues.length) {
+            throw new IllegalArgumentException("Option values and stock prices must have the same rows");
+        }
+        try (Writer writer = new Writer(file, optionValues.length - 1)) {
+            for (int step = 0; step < optionValues.length; step++) {
+                writer.writeRow(step, optionValues[step], stockPrices[step]);
+            }
+        }
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Reads one time slice of the tree, decoding the block that holds it unless it was the last one decoded.
+     *
+     * @param step         Row to read, 0..steps.
+     * @param optionValues Receives the row's step + 1 option values.
+     * @param stockPrices  Receives the row's step + 1 stock prices.
+     */
+    public void readRow(int step, double[] optionValues, double[] stockPrices) throws IOException {
+        if (step < 0 || step > steps) {
+            throw new IllegalArgumentException("Step must be between 0 and " + steps);
+        }
+        int block = rowBlocks[step];
+        if (block != decodedBlock) {
+            decodeBlock(block);
+        }
+        int position = rowPositions[step];
+        decodeSeries(decoded, position, step + 1, false, optionValues);
+        decodeSeries(decoded, position + step + 1, step + 1, true, stockPrices);
+    }
+
+    /**
+     * Reads the whole tree back into jagged arrays.
+     *
+     * @return The option values and the stock prices.
+     */
+    public double[][][] readTree() throws IOException {
+        double[][] optionValues = new double[steps + 1][];
+        double[][] stockPrices = new double[steps + 1][];
+        for (int step = 0; step <= steps; step++) {
+            optionValues[step] = new double[step + 1];
+            stockPrices[step] = new double[step + 1];
+            readRow(step, optionValues[step], stockPrices[step]);
+        }
+        return new double[][][]{optionValues, stockPrices};
+    }
+
+    /**
+     * @return The size of the file in bytes.
+     */
+    public long getFileSize() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    /**
+     * Saves a European put tree of {@code steps} steps as it is computed, from maturity back to the root, then
+     * reopens it and reads random rows, reporting the size against the raw doubles and the timings.
+     * <p>
+     * Arguments are key=value pairs: steps, output (snapshot file) and reads (rows read back).
+     */
+    public static void main(String[] args) throws IOException {
+        int steps = 20000;
+        String output = "tree.snapshot";
+        int reads = 200;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Arguments must be key=value pairs: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            switch (key) {
+                case "steps":
+                    steps = Integer.parseInt(value);
+                    break;
+                case "output":
+                    output = value;
+                    break;
+                case "reads":
+                    reads = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + key);
+            }
+        }
+
+        LatticeModel model = new LatticeParameters(LatticeParameters.Scheme.COX_ROSS_RUBINSTEIN, 100, 100, 0.05, 0.2,
+                1, steps).toModel(100);
+        OptionContract put = new OptionContract(100, false, false);
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        double upOverDown = model.getUpFactor() / model.getDownFactor();
+        double[] optionValues = new double[steps + 1];
+        double[] stockPrices = new double[steps + 1];
+        Path file = Paths.get(output);
+
+        long start = System.nanoTime();
+        try (Writer writer = new Writer(file, steps)) {
+            for (int step = steps; step >= 0; step--) {
+                double stockPrice = model.getInitialPrice() * Math.pow(model.getDownFactor(), step);
+                for (int i = 0; i <= step; i++) {
+                    stockPrices[i] = stockPrice;
+                    stockPrice *= upOverDown;
+                }
+                if (step == steps) {
+                    for (int i = 0; i <= steps; i++) {
+                        optionValues[i] = put.payoff(stockPrices[i]);
+                    }
+                } else {
+                    BinomialEngine.backwardRow(optionValues, 0, step, q, discount);
+                }
+                writer.writeRow(step, optionValues, stockPrices);
+            }
+        }
+        double writeSeconds = (System.nanoTime() - start) / 1e9;
+
+        start = System.nanoTime();
+        try (TreeSnapshot snapshot = new TreeSnapshot(file)) {
+            double openMillis = (System.nanoTime() - start) / 1e6;
+            Random random = new Random(1);
+            start = System.nanoTime();
+            for (int r = 0; r < reads; r++) {
+                snapshot.readRow(random.nextInt(steps + 1), optionValues, stockPrices);
+            }
+            double readMillis = (System.nanoTime() - start) / 1e6 / Math.max(1, reads);
+            snapshot.readRow(0, optionValues, stockPrices);
+
+            double rawBytes = 16.0 * (steps + 1) * (steps + 2) / 2;
+            System.out.printf("steps=%d price=%.6f raw=%.1f MB snapshot=%.1f MB (%.1f%%)%n", steps, optionValues[0],
+                    rawBytes / 1e6, snapshot.getFileSize() / 1e6, 100 * snapshot.getFileSize() / rawBytes);
+            System.out.printf("write %.2f s, open %.2f ms, random row read %.3f ms%n", writeSeconds, openMillis,
+                    readMillis);
+        }
+    }
+
+    private void decodeBlock(int block) throws IOException {
+        int values = blockValues[block];
+        int length = blockLengths[block];
+        if (compressed.length < length) {
+            compressed = new byte[length];
+        }
+        if (shuffled.length < values * 8) {
+            shuffled = new byte[values * 8];
+        }
+        if (decoded.length < values) {
+            decoded = new long[values];
+        }
+        decodedBlock = -1;
+        ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, length);
+        long position = blockOffsets[block];
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Snapshot is truncated");
+            }
+        }
+        inflater.reset();
+        inflater.setInput(compressed, 0, length);
+        try {
+            int inflated = 0;
+            while (inflated < values * 8 && !inflater.finished()) {
+                inflated += inflater.inflate(shuffled, inflated, values * 8 - inflated);
+            }
+            if (inflated != values * 8) {
+                throw new IOException("Snapshot block " + block + " is corrupt");
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Snapshot block " + block + " is corrupt", ex);
+        }
+        unshuffle(shuffled, values, decoded);
+        decodedBlock = block;
+    }
+
+    private ByteBuffer read(long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Snapshot is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Predicts node i of a row from the nodes before it: stock prices, geometric along a row, by the ratio of the
+     * last two; option values, smooth in the node index, by extrapolating the polynomial through the last four
+     * (fewer at the start of the row). The writer stores the XOR of each value's bits with its prediction's, so
+     * the high bytes of good predictions are zeros; the reader computes the same prediction from the same
+     * decoded values, so the encoding is lossless.
+     */
+    private static double predict(double[] values, int i, boolean geometric) {
+        double prediction;
+        if (i == 0) {
+            return 0;
+        } else if (i == 1) {
+            return values[0];
+        } else if (geometric) {
+            prediction = values[i - 1] * (values[i - 1] / values[i - 2]);
+        } else if (i == 2) {
+            prediction = 2 * values[1] - values[0];
+        } else if (i == 3) {
+            prediction = 3 * values[2] - 3 * values[1] + values[0];
+        } else {
+            prediction = 4 * values[i - 1] - 6 * values[i - 2] + 4 * values[i - 3] - values[i - 4];
+        }
+        return Double.isFinite(prediction) ? prediction : values[i - 1];
+    }
+
+    private static void encodeSeries(double[] values, int length, boolean geometric, long[] residuals, int offset) {
+        for (int i = 0; i < length; i++) {
+            residuals[offset + i] = Double.doubleToRawLongBits(values[i])
+                    ^ Double.doubleToRawLongBits(predict(values, i, geometric));
+        }
+    }
+
+    private static void decodeSeries(long[] residuals, int offset, int length, boolean geometric, double[] values) {
+        for (int i = 0; i < length; i++) {
+            values[i] = Double.longBitsToDouble(residuals[offset + i]
+                    ^ Double.doubleToRawLongBits(predict(values, i, geometric)));
+        }
+    }
+
+    /**
+     * Splits the residuals into byte planes, all most significant bytes first: good predictions leave the high
+     * planes almost all zeros, which Deflate compresses far better than interleaved 8-byte values.
+     */
+    private static void shuffle(long[] residuals, int count, byte[] out) {
+        for (int v = 0; v < count; v++) {
+            long residual = residuals[v];
+            for (int plane = 0; plane < 8; plane++) {
+                out[plane * count + v] = (byte) (residual >>> (56 - 8 * plane));
+            }
+        }
+    }
+
+    private static void unshuffle(byte[] in, int count, long[] residuals) {
+        for (int v = 0; v < count; v++) {
+            long residual = 0;
+            for (int plane = 0; plane < 8; plane++) {
+                residual |= (in[plane * count + v] & 0xffL) << (56 - 8 * plane);
+            }
+            residuals[v] = residual;
+        }
+    }
+
+    /**
+     * Streams a tree into a snapshot file row by row, in any order, so that a tree can be saved as it is computed
+     * (for example from maturity back to the root) without ever holding all of it.
+     * <p>
+     * Each row is stored as its option values followed by its stock prices. Rows are gathered into blocks of at
+     * least {@value TreeSnapshot#BLOCK_VALUES} values. Each value is stored as the XOR of its bits with a
+     * prediction from the values before it in its row, and each block is byte-plane shuffled and Deflate
+     * compressed on its own, so any row can be read by decoding a single block. The block table and
+     * the row index follow the blocks, and the header points at them once the writer is closed.
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final int steps;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final int[] rowBlocks;
+        private final int[] rowPositions;
+        private long[] blockOffsets = new long[16];
+        private int[] blockLengths = new int[16];
+        private int[] blockValues = new int[16];
+        private int blocks;
+        private long[] pending = new long[2 * BLOCK_VALUES];
+        private int pendingValues;
+        private byte[] shuffled = new byte[0];
+        private byte[] compressed = new byte[0];
+        private long position = HEADER_BYTES;
+        private int rowsWritten;
+
+        /**
+         * @param file  Snapshot file; replaced if it exists.
+         * @param steps Number of steps of the tree; rows 0..steps must each be written once.
+         */
+        public Writer(Path file, int steps) throws IOException {
+            if (steps < 0) {
+                throw new IllegalArgumentException("Steps must not be negative");
+            }
+            this.steps = steps;
+            this.rowBlocks = new int[steps + 1];
+            this.rowPositions = new int[steps + 1];
+            Arrays.fill(rowBlocks, -1);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(0, MAGIC);
+            header.putInt(8, FORMAT_VERSION);
+            header.putInt(STEPS_OFFSET, steps);
+            // The index offset stays zero until close, marking an incomplete file.
+            writeFully(header, 0);
+        }
+
+        /**
+         * @param step         Row of the tree, 0..steps.
+         * @param optionValues At least step + 1 option values.
+         * @param stockPrices  At least step + 1 stock prices.
+         */
+        public void writeRow(int step, double[] optionValues, double[] stockPrices) throws IOException {
+            if (step < 0 || step > steps || rowBlocks[step] >= 0) {
+                throw new IllegalArgumentException("Each step from 0 to " + steps + " must be written once");
+            }
+            int length = step + 1;
+            if (pendingValues + 2 * length > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(2 * pending.length, pendingValues + 2 * length));
+            }
+            rowBlocks[step] = blocks;
+            rowPositions[step] = pendingValues;
+            encodeSeries(optionValues, length, false, pending, pendingValues);
+            encodeSeries(stockPrices, length, true, pending, pendingValues + length);
+            pendingValues += 2 * length;
+            rowsWritten++;
+            if (pendingValues >= BLOCK_VALUES) {
+                flushBlock();
+            }
+        }
+
+        /**
+         * Writes the last block, the index and the header; fails if a row is missing.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (rowsWritten != steps + 1) {
+                    throw new IOException("Only " + rowsWritten + " of " + (steps + 1) + " rows were written");
+                }
+                if (pendingValues > 0) {
+                    flushBlock();
+                }
+                ByteBuffer index = ByteBuffer.allocate(4 + blocks * 16 + (steps + 1) * 8);
+                index.putInt(blocks);
+                for (int block = 0; block < blocks; block++) {
+                    index.putLong(blockOffsets[block]);
+                    index.putInt(blockLengths[block]);
+                    index.putInt(blockValues[block]);
+                }
+                for (int step = 0; step <= steps; step++) {
+                    index.putInt(rowBlocks[step]);
+                    index.putInt(rowPositions[step]);
+                }
+                index.flip();
+                long indexOffset = position;
+                writeFully(index, indexOffset);
+                ByteBuffer pointer = ByteBuffer.allocate(8);
+                pointer.putLong(0, indexOffset);
+                writeFully(pointer, INDEX_OFFSET);
+            } finally {
+                deflater.end();
+                channel.close();
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            int values = pendingValues;
+            if (shuffled.length < values * 8) {
+                shuffled = new byte[values * 8];
+                compressed = new byte[values * 8 + values * 8 / 100 + 64];
+            }
+            shuffle(pending, values, shuffled);
+            deflater.reset();
+            deflater.setInput(shuffled, 0, values * 8);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, 2 * compressed.length);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            writeFully(ByteBuffer.wrap(compressed, 0, length), position);
+
+            if (blocks == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, 2 * blocks);
+                blockLengths = Arrays.copyOf(blockLengths, 2 * blocks);
+                blockValues = Arrays.copyOf(blockValues, 2 * blocks);
+            }
+            blockOffsets[blocks] = position;
+            blockLengths[blocks] = length;
+            blockValues[blocks] = values;
+            blocks++;
+            position += length;
+            pendingValues = 0;
+        }
+
+        private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+public class TrinomialEngine implements PricingEngine {
+    /**
+     * Default stretch parameter suggested by Kamrad and Ritchken; it keeps the middle branch
+     * probability at 1/3, which gives smooth convergence.
+     */
+    public static final double DEFAULT_STRETCH = Math.sqrt(1.5);
+
+    private final double stretch;
+
+    public TrinomialEngine() {
+        this(DEFAULT_STRETCH);
+    }
+
+    /**
+     * @param stretch Node spacing in units of the per-step volatility (lambda); must be at least 1.
+     */
+    public TrinomialEngine(double stretch) {
+        if (stretch < 1) {
+            throw new IllegalArgumentException("Stretch parameter must be at least 1");
+        }
+        this.stretch = stretch;
+    }
+
+    /**
+     * Backward induction on a Kamrad-Ritchken trinomial tree.
+     * <p>
+     * Each trinomial step covers the same period as one binomial step of the model: the per-step log
+     * volatility is {@code v = ln(u / d) / 2}, the nodes are spaced {@code stretch * v} apart in log price and
+     * the branch probabilities match the log drift {@code ln(1 + r) - v^2 / 2}. Row n has 2n + 1 nodes and
+     * is updated in place: node i reads nodes i, i + 1 and i + 2 of the next row.
+     */
+    @Override
+    public double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Trinomial lattices do not support barrier options");
+        }
+        int steps = model.getSteps();
+        double initialPrice = model.getInitialPrice();
+        double interestRate = model.getInterestRate();
+        boolean isAmerican = contract.isAmerican();
+
+        // Compute the risk-neutral branch probabilities.
+        double volatility = (Math.log(model.getUpFactor()) - Math.log(model.getDownFactor())) / 2;
+        double drift = Math.log(1 + interestRate) - volatility * volatility / 2;
+        double spacing = stretch * volatility;
+        double probabilityMiddle = 1 - 1 / (stretch * stretch);
+        double probabilityUp = 1 / (2 * stretch * stretch) + drift / (2 * spacing);
+        double probabilityDown = 1 / (2 * stretch * stretch) - drift / (2 * spacing);
+        if (probabilityUp <= 0 || probabilityDown <= 0) {
+            throw new IllegalArgumentException("Invalid risk-neutral probability; check model parameters");
+        }
+
+        double nodeUp = Math.exp(spacing);
+        double nodeDown = Math.exp(-spacing);
+        double discount = 1 / (1 + interestRate);
+
+        double[] optionValues = workspace.values(2 * steps + 1);
+
+        // Compute terminal payoffs.
+        double stockPrice = initialPrice * Math.pow(nodeDown, steps);
+        for (int i = 0; i <= 2 * steps; i++) {
+            optionValues[i] = contract.payoff(stockPrice);
+            stockPrice *= nodeUp;
+        }
+
+        // Backward induction (update in place).
+        for (int step = steps - 1; step >= 0; step--) {
+            // Stock price of the lowest node in this row; only needed for early exercise.
+            stockPrice = isAmerican ? initialPrice * Math.pow(nodeDown, step) : 0;
+            for (int i = 0; i <= 2 * step; i++) {
+                double value = (probabilityDown * optionValues[i] + probabilityMiddle * optionValues[i + 1]
+                        + probabilityUp * optionValues[i + 2]) * discount;
+                if (isAmerican) {
+                    value = Math.max(value, contract.payoff(stockPrice));
+                    stockPrice *= nodeUp;
+                }
+                optionValues[i] = value;
+            }
+        }
+
+        // Rows 0..n-1 hold 1, 3, ..., 2n - 1 nodes; an exact price, so the error bound is reset too.
+        workspace.setNodesEvaluated((long) steps * steps);
+        return optionValues[0];
+    }
+
+    public double getStretch() {
+        return stretch;
+    }
+}
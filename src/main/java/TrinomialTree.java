@@ -0,0 +1,72 @@
+public class TrinomialTree {
+    private final double optionPrice;
+
+    /**
+     * Constructs a trinomial tree and computes the price of a European option.
+     *
+     * @param initialPrice  Initial asset price.
+     * @param strikePrice   Strike price of the option.
+     * @param probabilityUp The probability of the asset's value increasing in a single step.
+     * @param upFactor      Upward movement factor of the equivalent binomial step.
+     * @param downFactor    Downward movement factor of the equivalent binomial step.
+     * @param interestRate  Risk-free interest rate per period (e.g., 0.05 for 5%).
+     * @param isCall        True for Call option, False for Put option.
+     * @param steps         Number of steps in the tree.
+     */
+    public TrinomialTree(double initialPrice, double strikePrice, double probabilityUp,
+                         double upFactor, double downFactor, double interestRate,
+                         boolean isCall, int steps) {
+        this(initialPrice, strikePrice, probabilityUp, upFactor, downFactor, interestRate, isCall, false, steps);
+    }
+
+    /**
+     * Constructs a trinomial tree with the default stretch and computes the option price.
+     *
+     * @param initialPrice  Initial asset price.
+     * @param strikePrice   Strike price of the option.
+     * @param probabilityUp The probability of the asset's value increasing in a single step.
+     * @param upFactor      Upward movement factor of the equivalent binomial step.
+     * @param downFactor    Downward movement factor of the equivalent binomial step.
+     * @param interestRate  Risk-free interest rate per period (e.g., 0.05 for 5%).
+     * @param isCall        True for Call option, False for Put option.
+     * @param isAmerican    True if the option may be exercised at any node, False for European exercise.
+     * @param steps         Number of steps in the tree.
+     */
+    public TrinomialTree(double initialPrice, double strikePrice, double probabilityUp,
+                         double upFactor, double downFactor, double interestRate,
+                         boolean isCall, boolean isAmerican, int steps) {
+        this(initialPrice, strikePrice, probabilityUp, upFactor, downFactor, interestRate,
+                isCall, isAmerican, steps, TrinomialEngine.DEFAULT_STRETCH);
+    }
+
+    /**
+     * Constructs a trinomial tree using the Kamrad-Ritchken parameterization and computes the option price.
+     * <p>
+     * Each trinomial step covers the same period as one binomial step with the given up and down
+     * factors, so prices for the same number of steps are directly comparable with
+     * {@link FastMultiStepBinomialTree}. See {@link TrinomialEngine} for the parameterization.
+     *
+     * @param initialPrice  Initial asset price.
+     * @param strikePrice   Strike price of the option.
+     * @param probabilityUp The probability of the asset's value increasing in a single step.
+     * @param upFactor      Upward movement factor of the equivalent binomial step.
+     * @param downFactor    Downward movement factor of the equivalent binomial step.
+     * @param interestRate  Risk-free interest rate per period (e.g., 0.05 for 5%).
+     * @param isCall        True for Call option, False for Put option.
+     * @param isAmerican    True if the option may be exercised at any node, False for European exercise.
+     * @param steps         Number of steps in the tree.
+     * @param stretch       Node spacing in units of the per-step volatility (lambda); must be at least 1.
+     */
+    public TrinomialTree(double initialPrice, double strikePrice, double probabilityUp,
+                         double upFactor, double downFactor, double interestRate,
+                         boolean isCall, boolean isAmerican, int steps, double stretch) {
+        LatticeModel.checkProbability(probabilityUp);
+        LatticeModel model = new LatticeModel(initialPrice, upFactor, downFactor, interestRate, steps);
+        OptionContract contract = new OptionContract(strikePrice, isCall, isAmerican);
+        optionPrice = new TrinomialEngine(stretch).price(contract, model, new PricingWorkspace(2 * steps + 1));
+    }
+
+    public double getOptionPrice() {
+        return optionPrice;
+    }
+}
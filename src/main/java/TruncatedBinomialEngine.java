@@ -0,0 +1,142 @@
+public class TruncatedBinomialEngine implements PricingEngine {
+    /**
+     * Default band half-width in standard deviations; the chance of a path leaving the band is below 3e-14.
+     */
+    public static final double DEFAULT_STANDARD_DEVIATIONS = 8;
+
+    private final double standardDeviations;
+
+    public TruncatedBinomialEngine() {
+        this(DEFAULT_STANDARD_DEVIATIONS);
+    }
+
+    /**
+     * @param standardDeviations Half-width k of the band kept in every row, in standard deviations of the
+     *                           number of up moves at maturity; must be positive.
+     */
+    public TruncatedBinomialEngine(double standardDeviations) {
+        if (!(standardDeviations > 0)) {
+            throw new IllegalArgumentException("Number of standard deviations must be greater than zero");
+        }
+        this.standardDeviations = standardDeviations;
+    }
+
+    /**
+     * Backward induction on a binomial tree truncated to a band of +-k standard deviations around the
+     * risk-neutral centre of every row.
+     * <p>
+     * The number of up moves after m steps has mean m q; row m keeps nodes within a = k sqrt(n q (1 - q)) of it,
+     * so each row holds O(sqrt(n)) nodes and the price costs O(n sqrt(n)) instead of O(n^2). The nodes just
+     * outside the band get the no-arbitrage lower bound of the option value (the exact payoff at maturity).
+     * A path only reaches such a node if its centred up-move count strays more than a from zero, which by
+     * Hoeffding's maximal inequality happens with probability at most 2 exp(-2 a^2 / n); the error of the
+     * price is at most that probability times the widest no-arbitrage interval among the boundary nodes used.
+     * The bound is stored in the workspace ({@link PricingWorkspace#getErrorBound()}). Barrier contracts
+     * are not supported.
+     */
+    @Override
+    public double price(OptionContract contract, LatticeModel model, PricingWorkspace workspace) {
+        if (contract.getBarrierType() != OptionContract.BarrierType.NONE) {
+            throw new IllegalArgumentException("Truncated lattices do not support barrier options");
+        }
+        int steps = model.getSteps();
+        double upFactor = model.getUpFactor();
+        double downFactor = model.getDownFactor();
+        double q = model.getRiskNeutralProbability();
+        double discount = 1 / (1 + model.getInterestRate());
+        double upOverDown = upFactor / downFactor;
+        boolean isAmerican = contract.isAmerican();
+
+        // At least one node on each side of the centre, so no row of the band is ever empty.
+        double halfWidth = Math.max(1, standardDeviations * Math.sqrt(steps * q * (1 - q)));
+
+        double[] optionValues = workspace.values(steps + 1);
+
+        // Terminal row: exact payoffs inside the band.
+        int low = lowestNode(steps, q, halfWidth);
+        int high = highestNode(steps, q, halfWidth);
+        for (int i = low; i <= high; i++) {
+            optionValues[i] = contract.payoff(model.nodePrice(steps, i));
+        }
+
+        long nodesEvaluated = 0;
+        double widestBoundary = 0;
+        for (int step = steps - 1; step >= 0; step--) {
+            int rowLow = lowestNode(step, q, halfWidth);
+            int rowHigh = highestNode(step, q, halfWidth);
+
+            // The band drifts by q per row, so at most one node on each side of the row below is read from outside it.
+            if (rowLow < low) {
+                widestBoundary = Math.max(widestBoundary, setBoundaryValue(optionValues, low - 1, step + 1, steps,
+                        contract, model, discount));
+            }
+            if (rowHigh == high) {
+                widestBoundary = Math.max(widestBoundary, setBoundaryValue(optionValues, high + 1, step + 1, steps,
+                        contract, model, discount));
+            }
+
+            if (isAmerican) {
+                double lowestPrice = model.nodePrice(step, rowLow);
+                BinomialEngine.backwardRowAmerican(optionValues, rowLow, rowHigh, q, discount, contract,
+                        lowestPrice, upOverDown);
+            } else {
+                BinomialEngine.backwardRow(optionValues, rowLow, rowHigh, q, discount);
+            }
+            nodesEvaluated += rowHigh - rowLow + 1;
+            low = rowLow;
+            high = rowHigh;
+        }
+
+        double exitProbability = Math.min(1, 2 * Math.exp(-2 * halfWidth * halfWidth / steps));
+        // Discounting only shrinks boundary errors, unless the rate is negative.
+        double discountGrowth = Math.max(1, Math.pow(discount, steps));
+        workspace.setNodesEvaluated(nodesEvaluated);
+        workspace.setErrorBound(exitProbability * widestBoundary * discountGrowth);
+        return optionValues[0];
+    }
+
+    public double getStandardDeviations() {
+        return standardDeviations;
+    }
+
+    private static int lowestNode(int step, double q, double halfWidth) {
+        return (int) Math.max(0, Math.ceil(step * q - halfWidth));
+    }
+
+    private static int highestNode(int step, double q, double halfWidth) {
+        return (int) Math.min(step, Math.floor(step * q + halfWidth));
+    }
+
+    /**
+     * Writes the no-arbitrage lower bound of the option value at node {@code index} of row {@code step}.
+     *
+     * @return The width of the no-arbitrage interval at that node, i.e. the largest error the boundary value can carry.
+     */
+    private static double setBoundaryValue(double[] optionValues, int index, int step, int steps,
+                                           OptionContract contract, LatticeModel model, double discount) {
+        double stockPrice = model.nodePrice(step, index);
+        double intrinsic = contract.payoff(stockPrice);
+        if (step == steps) {
+            optionValues[index] = intrinsic;
+            return 0;
+        }
+
+        // A European call lies in [max(S - K D, 0), S] and a put in [max(K D - S, 0), K D], where D discounts to
+        // maturity; early exercise adds the intrinsic value to the lower bound and lifts the put's upper bound to K.
+        double discountedStrike = contract.getStrikePrice() * Math.pow(discount, steps - step);
+        double lower;
+        double upper;
+        if (contract.isCall()) {
+            lower = Math.max(stockPrice - discountedStrike, 0);
+            upper = stockPrice;
+        } else {
+            lower = Math.max(discountedStrike - stockPrice, 0);
+            upper = contract.isAmerican() ? Math.max(contract.getStrikePrice(), discountedStrike) : discountedStrike;
+        }
+        if (contract.isAmerican()) {
+            lower = Math.max(lower, intrinsic);
+        }
+        optionValues[index] = lower;
+        return upper - lower;
+    }
+}